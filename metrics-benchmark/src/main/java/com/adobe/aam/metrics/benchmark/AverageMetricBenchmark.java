@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.benchmark;
+
+import com.adobe.aam.metrics.metric.AverageMetric;
+import com.adobe.aam.metrics.metric.Metric;
+import com.adobe.aam.metrics.metric.MetricLabels;
+import com.adobe.aam.metrics.metric.StripedAverageMetric;
+import com.adobe.aam.metrics.metric.ThreadLocalMetric;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the mutex based {@link AverageMetric} with the {@link StripedAverageMetric} and the per-thread
+ * {@link ThreadLocalMetric} when all the available CPUs track values into the same metric. Use "-t" to benchmark other levels of contention.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class AverageMetricBenchmark {
+
+    @Param({"mutex", "striped", "threadLocal"})
+    public String implementation;
+
+    private Metric metric;
+
+    @Setup
+    public void setUp() {
+        MetricLabels labels = MetricLabels.of("request.size");
+        switch (implementation) {
+            case "mutex":
+                metric = new AverageMetric(labels);
+                break;
+            case "striped":
+                metric = new StripedAverageMetric(labels);
+                break;
+            default:
+                metric = ThreadLocalMetric.newInstance(labels, Metric.Type.AVG);
+        }
+    }
+
+    @Benchmark
+    public void track() {
+        metric.track(42);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void trackUncontended() {
+        metric.track(42);
+    }
+}
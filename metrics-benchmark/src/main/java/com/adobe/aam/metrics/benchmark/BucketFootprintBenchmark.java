@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.benchmark;
+
+import com.adobe.aam.metrics.core.publish.MetricSnapshot;
+import com.adobe.aam.metrics.metric.Metric;
+import com.adobe.aam.metrics.metric.bucket.MetricBucket;
+import com.adobe.aam.metrics.metric.bucket.MetricBucketImpl;
+import com.adobe.aam.metrics.metric.bucket.SlabMetricBucket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a {@link MetricBucketImpl} with a {@link SlabMetricBucket} holding the same number of COUNT series.
+ *
+ * The heap retained by the bucket is printed once the bucket is filled and collected once. The fullGc benchmark
+ * measures a full garbage collection with the bucket alive, which is what the series cost to every old generation
+ * collection. The collect benchmark measures a MetricAgent cycle: every series is added to the snapshot handed to the
+ * publishers, as its metric for the heap bucket, and straight from the slabs for the slab bucket. Run it with
+ * "-prof gc" to see what each cycle allocates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class BucketFootprintBenchmark {
+
+    @Param({"heap", "slab"})
+    public String implementation;
+
+    @Param({"1000000"})
+    public int series;
+
+    private MetricBucket bucket;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long before = usedHeapAfterGc();
+        bucket = "heap".equals(implementation)
+                ? new MetricBucketImpl("request", Metric.Type.COUNT, "user")
+                : new SlabMetricBucket("request", Metric.Type.COUNT, "user");
+
+        for (int i = 0; i < series; i++) {
+            bucket.getMetric("user-" + i).track(1);
+        }
+        collect();
+
+        long retained = usedHeapAfterGc() - before;
+        System.out.printf("%n%s bucket: %d series retain %d MB, %d bytes per series%n", implementation, series,
+                retained >> 20, retained / series);
+    }
+
+    @Benchmark
+    public MetricBucket fullGc() {
+        System.gc();
+        return bucket;
+    }
+
+    @Benchmark
+    public MetricSnapshot collect() {
+        MetricSnapshot.Builder snapshot = MetricSnapshot.builder(series + 1);
+        if (bucket instanceof SlabMetricBucket) {
+            ((SlabMetricBucket) bucket).collect(snapshot);
+            snapshot.add(bucket.getParentMetric());
+        } else {
+            bucket.getMetrics().forEach(snapshot::add);
+        }
+        return snapshot.build(Metric.getClock().time());
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.benchmark;
+
+import com.adobe.aam.metrics.metric.AdaptiveCounterMetric;
+import com.adobe.aam.metrics.metric.CounterMetric;
+import com.adobe.aam.metrics.metric.LongCounterMetric;
+import com.adobe.aam.metrics.metric.MetricLabels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the memory footprint of an idle counter series, as created in a large bucket and incremented once.
+ *
+ * Run it with the GC profiler (-prof gc): gc.alloc.rate.norm is the number of bytes of one series, not counting its
+ * labels, which are shared here.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CounterFootprintBenchmark {
+
+    private static final MetricLabels LABELS = MetricLabels.of("requests");
+
+    @Param({"double", "long", "adaptive"})
+    public String implementation;
+
+    @Benchmark
+    public CounterMetric idleSeries() {
+        CounterMetric metric;
+        switch (implementation) {
+            case "double":
+                metric = new CounterMetric(LABELS);
+                break;
+            case "long":
+                metric = new LongCounterMetric(LABELS);
+                break;
+            default:
+                metric = new AdaptiveCounterMetric(LABELS);
+        }
+
+        metric.increment();
+        return metric;
+    }
+}
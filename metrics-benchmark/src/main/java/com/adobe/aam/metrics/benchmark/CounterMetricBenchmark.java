@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.benchmark;
+
+import com.adobe.aam.metrics.metric.AdaptiveCounterMetric;
+import com.adobe.aam.metrics.metric.CounterMetric;
+import com.adobe.aam.metrics.metric.LongCounterMetric;
+import com.adobe.aam.metrics.metric.MetricLabels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the DoubleAdder-based counter with the LongAdder-based one and the adaptive one, for the usual integral
+ * increments.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class CounterMetricBenchmark {
+
+    @Param({"double", "long", "adaptive"})
+    public String implementation;
+
+    private CounterMetric metric;
+
+    @Setup
+    public void setUp() {
+        MetricLabels labels = MetricLabels.of("requests");
+        switch (implementation) {
+            case "double":
+                metric = new CounterMetric(labels);
+                break;
+            case "long":
+                metric = new LongCounterMetric(labels);
+                break;
+            default:
+                metric = new AdaptiveCounterMetric(labels);
+        }
+    }
+
+    @Benchmark
+    public void increment() {
+        metric.increment();
+    }
+
+    @Benchmark
+    public void track() {
+        metric.track(1);
+    }
+}
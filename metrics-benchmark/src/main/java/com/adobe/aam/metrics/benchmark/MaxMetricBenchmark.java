@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.benchmark;
+
+import com.adobe.aam.metrics.metric.MaxMetric;
+import com.adobe.aam.metrics.metric.Metric;
+import com.adobe.aam.metrics.metric.MetricLabels;
+import com.adobe.aam.metrics.metric.StripedMaxMetric;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures MAX metrics when most of the tracked values don't set a new maximum (the common case for a latency
+ * gauge), and when every tracked value does.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class MaxMetricBenchmark {
+
+    @Param({"cas", "striped"})
+    public String implementation;
+
+    private Metric metric;
+
+    @Setup
+    public void setUp() {
+        MetricLabels labels = MetricLabels.of("request.time");
+        metric = "cas".equals(implementation)
+                ? new MaxMetric(labels)
+                : new StripedMaxMetric(labels);
+        metric.track(1000);
+    }
+
+    @Benchmark
+    public void trackNoNewMaximum() {
+        metric.track(ThreadLocalRandom.current().nextInt(1000));
+    }
+
+    @Benchmark
+    public void trackNewMaximum() {
+        metric.track(System.nanoTime());
+    }
+}
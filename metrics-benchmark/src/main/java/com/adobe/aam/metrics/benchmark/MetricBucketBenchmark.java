@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.benchmark;
+
+import com.adobe.aam.metrics.metric.Metric;
+import com.adobe.aam.metrics.metric.bucket.IntRangeMetricBucket;
+import com.adobe.aam.metrics.metric.bucket.MetricBucketImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares incrementing a bucket child looked up on each call, by label value or by array index, with incrementing
+ * a bound one.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class MetricBucketBenchmark {
+
+    private MetricBucketImpl bucket;
+    private MetricBucketImpl labeledBucket;
+    private IntRangeMetricBucket rangeBucket;
+    private Metric bound;
+
+    @Setup
+    public void setUp() {
+        bucket = new MetricBucketImpl("request", Metric.Type.COUNT);
+        labeledBucket = new MetricBucketImpl("request", Metric.Type.COUNT, "region",
+                Arrays.asList("status", "method"));
+        rangeBucket = new IntRangeMetricBucket("response", Metric.Type.COUNT, "status", 100, 599);
+        bound = bucket.bind("succeeded");
+    }
+
+    @Benchmark
+    public void getMetric() {
+        bucket.getMetric("succeeded").track(1);
+    }
+
+    @Benchmark
+    public void getMetricWithLabels() {
+        labeledBucket.getMetric("us-east", 200, "GET").track(1);
+    }
+
+    @Benchmark
+    public void getMetricByIndex() {
+        rangeBucket.getMetric(200).track(1);
+    }
+
+    @Benchmark
+    public void bound() {
+        bound.track(1);
+    }
+}
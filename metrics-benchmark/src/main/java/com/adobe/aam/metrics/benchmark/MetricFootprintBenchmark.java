@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.benchmark;
+
+import com.adobe.aam.metrics.metric.ImmutableMetricLabels;
+import com.adobe.aam.metrics.metric.Metric;
+import com.adobe.aam.metrics.metric.MetricLabels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports the footprint of a bucket child: its metric, of each simple type, and its labels.
+ *
+ * Run it with the GC profiler (-prof gc): gc.alloc.rate.norm is the number of bytes of one metric or one set of
+ * labels, not counting the label values, which are shared here. The child labels are built as a bucket builds
+ * them, from the labels of its parent.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricFootprintBenchmark {
+
+    private static final MetricLabels PARENT_LABELS = ImmutableMetricLabels.builder()
+            .metricName("request")
+            .preLabelName("region")
+            .preLabelValue("us-east")
+            .addAllPostLabelNames(Arrays.asList("status", "method"))
+            .build();
+    private static final MetricLabels LABELS = MetricLabels.of("request");
+
+    @Param({"GAUGE", "MIN", "MAX", "COUNT", "AVG"})
+    public Metric.Type type;
+
+    @Benchmark
+    public Metric metric() {
+        Metric metric = Metric.newInstance(LABELS, type);
+        metric.track(1);
+        return metric;
+    }
+
+    @Benchmark
+    public MetricLabels childLabels() {
+        return ImmutableMetricLabels.copyOf(PARENT_LABELS).withPostLabelValues("200", "GET");
+    }
+}
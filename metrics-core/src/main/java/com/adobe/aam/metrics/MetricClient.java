@@ -13,6 +13,7 @@
 
 package com.adobe.aam.metrics;
 
+import com.adobe.aam.metrics.core.publish.MetricSnapshot;
 import com.adobe.aam.metrics.metric.Metric;
 
 import java.util.Collection;
@@ -23,6 +24,13 @@ public interface MetricClient {
 
     void send(Collection<Metric> metrics);
 
+    /**
+     * Sends the series collected by the MetricAgent during one cycle. By default, they are sent as metrics.
+     */
+    default void send(MetricSnapshot snapshot) {
+        send(snapshot.asMetrics());
+    }
+
     /**
      * Flushes the collected metrics to the underlying publishers. Write them immediately to their
      * intended destination.
@@ -15,23 +15,23 @@ package com.adobe.aam.metrics.agent;
 
 import com.adobe.aam.metrics.BufferedMetricClient;
 import com.adobe.aam.metrics.core.MetricRegistryReporter;
+import com.adobe.aam.metrics.core.publish.MetricSnapshot;
+import com.adobe.aam.metrics.metric.CompositeMetric;
 import com.adobe.aam.metrics.metric.Metric;
-import com.adobe.aam.metrics.metric.SimpleMetric;
 import com.adobe.aam.metrics.metric.bucket.MetricBucket;
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Sets;
+import com.adobe.aam.metrics.metric.bucket.SlabMetricBucket;
 import com.google.common.util.concurrent.AbstractScheduledService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * The MetricAgent periodically reports the metric values to the provided metric client.
@@ -46,6 +46,10 @@ public class MetricAgent extends AbstractScheduledService {
     private final Collection<MetricRegistryReporter> codahaleMetricRegistryReporters;
     private final Duration collectFrequency;
     private final Map<Metric, ValueProvider> metricValueProviders;
+    // The metrics collected during the current iteration, by identity, so that a metric reported from several
+    // sources is only sent once.
+    private final Set<Metric> collected = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int lastSnapshotSize;
 
     public MetricAgent(BufferedMetricClient metricClient, MetricAgentConfig config) {
         this.metricClient = metricClient;
@@ -78,57 +82,67 @@ public class MetricAgent extends AbstractScheduledService {
         );
     }
 
+    /**
+     * Collects all the series in a single pass into a snapshot, and hands it over to the metric client.
+     */
     @Override
     protected void runOneIteration() {
+        MetricSnapshot.Builder snapshot = MetricSnapshot.builder(lastSnapshotSize);
+        try {
+            metrics.forEach(metric -> collect(metric, snapshot));
+            metricBuckets.forEach(bucket -> collect(bucket, snapshot));
+            metricValueProviders.forEach((metric, valueProvider) -> collectWithValueProvider(metric, valueProvider,
+                    snapshot));
+            codahaleMetricRegistryReporters.forEach(reporter -> reporter.getMetrics()
+                    .forEach(metric -> collect(metric, snapshot)));
+        } finally {
+            collected.clear();
+        }
 
-        ImmutableSet.Builder<Metric> allMetrics = ImmutableSet.<Metric>builder()
-                .addAll(metrics);
-        metricBuckets
-                .forEach(bucket -> allMetrics.addAll(bucket.getMetrics()));
-
-        Stream<Metric> metrics = getWithProvider(Sets.union(allMetrics.build(), metricValueProviders.keySet()));
-        Stream<Metric> metrics2 = getFromMetricRegistries();
-        Set<Metric> combinedMetrics = Stream.concat(metrics, metrics2)
-                .map(metric -> shouldResetMetric(metric)
-                        ? new SimpleMetric(metric.getName(), metric.getType(), metric.getAndReset(), metric.getLastTrackTime())
-                        : metric)
-                .collect(Collectors.toSet());
-        metricClient.send(combinedMetrics);
+        lastSnapshotSize = snapshot.size();
+        metricClient.send(snapshot.build(Metric.getClock().time()));
         metricClient.flush();
     }
 
-    private boolean shouldResetMetric(Metric metric) {
-        return metric.getType() != Metric.Type.COUNT;
+    private void collect(MetricBucket bucket, MetricSnapshot.Builder snapshot) {
+        if (bucket instanceof SlabMetricBucket) {
+            // The series of a slab bucket are written from its slabs, without a metric for each of them.
+            ((SlabMetricBucket) bucket).collect(snapshot);
+            collect(bucket.getParentMetric(), snapshot);
+        } else {
+            bucket.getMetrics().forEach(metric -> collect(metric, snapshot));
+        }
     }
 
-    private Stream<Metric> getWithProvider(Collection<Metric> metrics) {
-        return metrics.stream()
-                .map(this::getWithValueProvider)
-                .filter(Optional::isPresent)
-                .map(Optional::get);
+    private void collect(Metric metric, MetricSnapshot.Builder snapshot) {
+        if (metricValueProviders.containsKey(metric) || !collected.add(metric)) {
+            // The metric is reported with its value provider, or was already reported from another source.
+            return;
+        }
+
+        if (metric instanceof CompositeMetric) {
+            ((CompositeMetric) metric).getAndResetSeries().forEach(snapshot::add);
+        } else if (shouldResetMetric(metric)) {
+            double value = metric.getAndReset();
+            snapshot.add(metric.getLabels(), metric.getType(), value, metric.getLastTrackTime());
+        } else {
+            snapshot.add(metric);
+        }
     }
 
-    private Optional<Metric> getWithValueProvider(Metric metric) {
-        boolean hasValueProvider = metricValueProviders.containsKey(metric);
-        return hasValueProvider
-                ? reportMetricWithValueProvider(metric, metricValueProviders.get(metric))
-                : Optional.of(metric);
+    private boolean shouldResetMetric(Metric metric) {
+        return metric.getType() != Metric.Type.COUNT;
     }
 
-    private Optional<Metric> reportMetricWithValueProvider(Metric metric, ValueProvider valueProvider) {
+    private void collectWithValueProvider(Metric metric, ValueProvider valueProvider,
+                                          MetricSnapshot.Builder snapshot) {
         Optional<Double> value = valueProvider.getValue();
 
         if (!value.isPresent()) {
             logger.trace("Metric does not have a value. Not sending over the network. {}", metric);
+            return;
         }
 
-        return value.map(val -> new SimpleMetric(metric.getName(), metric.getType(), val));
-    }
-
-    private Stream<Metric> getFromMetricRegistries() {
-
-        return codahaleMetricRegistryReporters
-                .stream()
-                .flatMap(reporter -> reporter.getMetrics().stream());
+        snapshot.add(metric.getLabels(), metric.getType(), value.get(), Metric.getClock().time());
     }
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.clock;
+
+/**
+ * A source of time, which can be replaced in tests.
+ */
+public interface Clock {
+
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long tick() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public long time() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    /**
+     * @return the current value of a monotonic, high-resolution time source, in nanoseconds. It is only meaningful
+     * when compared to another tick.
+     */
+    long tick();
+
+    /**
+     * @return the wall clock time, in milliseconds since the epoch
+     */
+    long time();
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.clock;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A clock whose wall clock time is cached, and refreshed by a background daemon thread. Reading the time is a single
+ * volatile read, which makes it cheap enough to be called on every metric update, at the cost of being up to one
+ * resolution period late.
+ *
+ * The ticks are not cached, since they are used to measure durations.
+ */
+public final class CoarseClock implements Clock {
+
+    public static final long DEFAULT_RESOLUTION_MS = 10;
+
+    private final ScheduledExecutorService ticker;
+    private volatile long time = System.currentTimeMillis();
+
+    /**
+     * @param resolutionMs how often the cached time is refreshed, in milliseconds
+     */
+    public CoarseClock(long resolutionMs) {
+        if (resolutionMs <= 0) {
+            throw new IllegalArgumentException("The resolution must be positive: " + resolutionMs);
+        }
+
+        this.ticker = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("metrics-coarse-clock-%d")
+                .setDaemon(true)
+                .build());
+        this.ticker.scheduleAtFixedRate(() -> time = System.currentTimeMillis(),
+                resolutionMs, resolutionMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the shared coarse clock, refreshed every {@link #DEFAULT_RESOLUTION_MS} milliseconds. It is the default
+     * clock of the metrics, so its thread is started as soon as the {@code Metric} class is loaded.
+     */
+    public static CoarseClock getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    @Override
+    public long tick() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public long time() {
+        return time;
+    }
+
+    /**
+     * Stops refreshing the time. The clock keeps returning the last cached time.
+     */
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    private static final class DefaultHolder {
+        private static final CoarseClock INSTANCE = new CoarseClock(DEFAULT_RESOLUTION_MS);
+    }
+}
@@ -14,6 +14,7 @@
 package com.adobe.aam.metrics.core.client;
 
 import com.adobe.aam.metrics.BufferedMetricClient;
+import com.adobe.aam.metrics.core.publish.MetricSnapshot;
 import com.adobe.aam.metrics.core.publish.Publisher;
 import com.adobe.aam.metrics.metric.Metric;
 import com.google.common.collect.ImmutableList;
@@ -26,6 +27,7 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -36,6 +38,7 @@ public class DefaultMetricClient implements BufferedMetricClient {
     private static final Logger logger = LoggerFactory.getLogger(DefaultMetricClient.class);
     private final ExecutorService executor;
     private final Queue<Metric> queue;
+    private final Queue<MetricSnapshot> snapshots = new ConcurrentLinkedQueue<>();
     private final Collection<Publisher> metricPublishers;
 
     public DefaultMetricClient(Queue<Metric> queue,
@@ -74,8 +77,23 @@ public class DefaultMetricClient implements BufferedMetricClient {
         queue.addAll(metrics);
     }
 
+    /**
+     * Queues the snapshot as it is. Each publisher then gets a view of it, with the series it accepts.
+     */
+    @Override
+    public void send(MetricSnapshot snapshot) {
+        snapshots.add(snapshot);
+    }
+
     @Override
     public synchronized void flush() {
+        while (!snapshots.isEmpty() && !Thread.currentThread().isInterrupted()) {
+            MetricSnapshot snapshot = snapshots.poll();
+            if (snapshot.size() > 0) {
+                metricPublishers.forEach(publisher -> submitToExecutor(publisher, snapshot));
+            }
+        }
+
         while (!queue.isEmpty() && !Thread.currentThread().isInterrupted()) {
             List<Metric> metrics = takeAll();
             if (!metrics.isEmpty()) {
@@ -111,8 +129,26 @@ public class DefaultMetricClient implements BufferedMetricClient {
         });
     }
 
+    private void submitToExecutor(Publisher publisher, MetricSnapshot snapshot) {
+
+        executor.submit(() -> {
+            try {
+                publisher.publishSnapshot(getFilteredSnapshot(publisher, snapshot));
+            } catch (IOException e) {
+                logger.error("Failed to publish.", e);
+            }
+        });
+    }
+
+    private MetricSnapshot getFilteredSnapshot(Publisher publisher, MetricSnapshot snapshot) {
+        return snapshot.filter(index ->
+                (snapshot.getType(index) != Metric.Type.SKETCH || publisher.acceptsSketches())
+                        && publisher.isAllowed(snapshot.getLabels(index), snapshot.getType(index)));
+    }
+
     private Collection<Metric> getFilteredMetrics(Publisher publisher, Collection<Metric> metrics) {
         return metrics.stream()
+                .filter(metric -> metric.getType() != Metric.Type.SKETCH || publisher.acceptsSketches())
                 .filter(publisher::isAllowed)
                 .collect(Collectors.toSet());
     }
@@ -13,6 +13,7 @@
 package com.adobe.aam.metrics.core.failsafe;
 
 import com.adobe.aam.metrics.core.config.PublisherConfig;
+import com.adobe.aam.metrics.core.publish.MetricSnapshot;
 import com.adobe.aam.metrics.core.publish.Publisher;
 import com.adobe.aam.metrics.metric.Metric;
 
@@ -44,6 +45,11 @@ public final class FailsafePublisher implements Publisher {
         return publisher.config();
     }
 
+    @Override
+    public boolean acceptsSketches() {
+        return publisher.acceptsSketches();
+    }
+
     @Override
     public void shutdown() {
         publisher.shutdown();
@@ -57,4 +63,13 @@ public final class FailsafePublisher implements Publisher {
 
         dispatcher.dispatch(() -> publisher.publishMetrics(metrics));
     }
+
+    @Override
+    public void publishSnapshot(MetricSnapshot snapshot) {
+        if (snapshot.size() == 0) {
+            return;
+        }
+
+        dispatcher.dispatch(() -> publisher.publishSnapshot(snapshot));
+    }
 }
@@ -41,19 +41,42 @@ public abstract class AbstractPublisher implements Publisher {
 
     public abstract void doPublishMetrics(Collection<Metric> metrics) throws IOException;
 
-    private int nonEmptyBatchSize() {
+    /**
+     * @return the number of metrics (or series) published by each call to a backend
+     */
+    protected int nonEmptyBatchSize() {
         return config.batchSize() <= 0 ? 500 : config.batchSize();
     }
 
     private boolean shouldKeep(Metric metric) {
+        return shouldKeep(metric.getLastTrackTime());
+    }
+
+    /**
+     * @return false for the series which were not updated recently, if only those should be published
+     */
+    protected boolean shouldKeep(long lastTrackTime) {
         return !config().sendOnlyRecentlyUpdatedMetrics()
-                || System.currentTimeMillis() - metric.getLastTrackTime() <= config().publishFrequencyMs();
+                || Metric.getClock().time() - lastTrackTime <= config().publishFrequencyMs();
     }
 
     public double getMetricValue(Metric metric) {
         return config().resetCounters() ? resetCounterHelper.resetIfCounter(metric) : metric.get();
     }
 
+    /**
+     * @return the value of the given series of a snapshot. Only the counters which carry no increment are read as
+     * metrics, since their previous value is kept when resetting them.
+     */
+    public double getMetricValue(MetricSnapshot snapshot, int index) {
+        if (!config().resetCounters() || snapshot.getType(index) != Metric.Type.COUNT) {
+            return snapshot.getValue(index);
+        }
+
+        double increment = snapshot.getIncrement(index);
+        return Double.isNaN(increment) ? resetCounterHelper.resetIfCounter(snapshot.getMetric(index)) : increment;
+    }
+
     public PublisherConfig config() {
         return config;
     }
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.core.publish;
+
+import com.adobe.aam.metrics.metric.Metric;
+import com.adobe.aam.metrics.metric.MetricLabels;
+import com.adobe.aam.metrics.metric.SimpleMetric;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntPredicate;
+
+/**
+ * The series collected by the MetricAgent during one cycle, stored column by column: the labels which identify each
+ * series, its type, its value and its last track time, along with the time of the capture.
+ *
+ * A snapshot is filled once by the agent, then only read by the publishers, so it is shared by all of them without
+ * copies. The publishers which consume metrics get them through {@link #asMetrics()}.
+ *
+ * A counter is usually added as its metric, whose previous value the publishers which reset counters keep themselves.
+ * The counters which are not kept as metrics, such as the series of a slab bucket, are added with their increase since
+ * the previous snapshot instead, see {@link #getIncrement(int)}.
+ */
+public final class MetricSnapshot {
+
+    private static final Metric.Type[] TYPES = Metric.Type.values();
+
+    private final long captureTime;
+    private final int size;
+    private final MetricLabels[] labels;
+    private final byte[] types;
+    private final double[] values;
+    private final long[] lastTrackTimes;
+    // The increase of the counters added without a metric since the previous snapshot, NaN for the other series, or
+    // null if there are none.
+    private final double[] increments;
+    // The metrics which are published as they are: the counters, whose previous value may be kept by the publishers,
+    // and the series already built by composite metrics. Null for the other series.
+    private final Metric[] sources;
+    // The metrics handed to the publishers which consume metrics, built on first use and shared by the filtered
+    // snapshots.
+    private final AtomicReferenceArray<Metric> metrics;
+    // The rows kept by a filtered snapshot, or null if it has all the rows.
+    private final int[] rows;
+
+    private MetricSnapshot(long captureTime, int size, MetricLabels[] labels, byte[] types, double[] values,
+                           long[] lastTrackTimes, double[] increments, Metric[] sources,
+                           AtomicReferenceArray<Metric> metrics, int[] rows) {
+        this.captureTime = captureTime;
+        this.size = size;
+        this.labels = labels;
+        this.types = types;
+        this.values = values;
+        this.lastTrackTimes = lastTrackTimes;
+        this.increments = increments;
+        this.sources = sources;
+        this.metrics = metrics;
+        this.rows = rows;
+    }
+
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    /**
+     * @return the time at which the series were collected, in milliseconds since the epoch
+     */
+    public long getCaptureTime() {
+        return captureTime;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the labels of the given series, which identify it from one cycle to the next
+     */
+    public MetricLabels getLabels(int index) {
+        return labels[row(index)];
+    }
+
+    public Metric.Type getType(int index) {
+        return TYPES[types[row(index)]];
+    }
+
+    public double getValue(int index) {
+        return values[row(index)];
+    }
+
+    public long getLastTrackTime(int index) {
+        return lastTrackTimes[row(index)];
+    }
+
+    /**
+     * @return the increase of the given counter since the previous snapshot, or NaN if the counter was added as its
+     * metric, or if the series is not a counter
+     */
+    public double getIncrement(int index) {
+        return increments != null ? increments[row(index)] : Double.NaN;
+    }
+
+    /**
+     * @return the given series as a metric
+     */
+    public Metric getMetric(int index) {
+        int row = row(index);
+        Metric metric = metrics.get(row);
+        if (metric == null) {
+            metric = sources[row] != null
+                    ? sources[row]
+                    : increments != null && !Double.isNaN(increments[row])
+                    ? new CounterSeries(labels[row], values[row], increments[row], lastTrackTimes[row])
+                    : new SimpleMetric(labels[row], TYPES[types[row]], values[row], lastTrackTimes[row]);
+            // The publishers running concurrently all get the same metric.
+            if (!metrics.compareAndSet(row, null, metric)) {
+                metric = metrics.get(row);
+            }
+        }
+        return metric;
+    }
+
+    /**
+     * @return the series of this snapshot as metrics, for the publishers which consume metrics
+     */
+    public List<Metric> asMetrics() {
+        return new AbstractList<Metric>() {
+            @Override
+            public Metric get(int index) {
+                return getMetric(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * @return a snapshot with the series of this one matching the given predicate, which receives their indexes. It
+     * shares the columns of this snapshot.
+     */
+    public MetricSnapshot filter(IntPredicate predicate) {
+        int[] kept = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (predicate.test(i)) {
+                kept[count++] = row(i);
+            }
+        }
+
+        if (count == size) {
+            return this;
+        }
+        return new MetricSnapshot(captureTime, count, labels, types, values, lastTrackTimes, increments, sources,
+                metrics, Arrays.copyOf(kept, count));
+    }
+
+    private int row(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return rows == null ? index : rows[index];
+    }
+
+    /**
+     * A counter added without a metric, which carries its increase since the previous snapshot, so that the publishers
+     * which reset counters do not need to keep its previous value.
+     */
+    static final class CounterSeries extends SimpleMetric {
+
+        private final double increment;
+
+        CounterSeries(MetricLabels labels, double value, double increment, long lastTrack) {
+            super(labels, Metric.Type.COUNT, value, lastTrack);
+            this.increment = increment;
+        }
+
+        double getIncrement() {
+            return increment;
+        }
+    }
+
+    /**
+     * Fills the columns of a snapshot. It is not thread safe.
+     */
+    public static final class Builder {
+
+        private int size;
+        private MetricLabels[] labels;
+        private byte[] types;
+        private double[] values;
+        private long[] lastTrackTimes;
+        // Allocated by the first counter added with its increment.
+        private double[] increments;
+        private Metric[] sources;
+
+        private Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 16);
+            this.labels = new MetricLabels[capacity];
+            this.types = new byte[capacity];
+            this.values = new double[capacity];
+            this.lastTrackTimes = new long[capacity];
+            this.sources = new Metric[capacity];
+        }
+
+        /**
+         * Adds a series by its value.
+         */
+        public Builder add(MetricLabels labels, Metric.Type type, double value, long lastTrackTime) {
+            return add(labels, type, value, lastTrackTime, Double.NaN, null);
+        }
+
+        /**
+         * Adds a series which is published as the given metric, with its current value.
+         */
+        public Builder add(Metric metric) {
+            return add(metric.getLabels(), metric.getType(), metric.get(), metric.getLastTrackTime(), Double.NaN,
+                    metric);
+        }
+
+        /**
+         * Adds a counter which is not kept as a metric from one snapshot to the next, by its value and its increase
+         * since the previous snapshot.
+         */
+        public Builder addCounter(MetricLabels labels, double value, double increment, long lastTrackTime) {
+            if (increments == null) {
+                increments = new double[this.labels.length];
+                Arrays.fill(increments, Double.NaN);
+            }
+            return add(labels, Metric.Type.COUNT, value, lastTrackTime, increment, null);
+        }
+
+        private Builder add(MetricLabels labels, Metric.Type type, double value, long lastTrackTime, double increment,
+                            Metric source) {
+            if (size == this.labels.length) {
+                grow();
+            }
+
+            this.labels[size] = labels;
+            this.types[size] = (byte) type.ordinal();
+            this.values[size] = value;
+            this.lastTrackTimes[size] = lastTrackTime;
+            this.sources[size] = source;
+            if (increments != null) {
+                this.increments[size] = increment;
+            }
+            size++;
+            return this;
+        }
+
+        private void grow() {
+            int capacity = labels.length * 2;
+            labels = Arrays.copyOf(labels, capacity);
+            types = Arrays.copyOf(types, capacity);
+            values = Arrays.copyOf(values, capacity);
+            lastTrackTimes = Arrays.copyOf(lastTrackTimes, capacity);
+            if (increments != null) {
+                increments = Arrays.copyOf(increments, capacity);
+            }
+            sources = Arrays.copyOf(sources, capacity);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @param captureTime the time at which the series were collected, in milliseconds since the epoch
+         */
+        public MetricSnapshot build(long captureTime) {
+            MetricSnapshot snapshot = new MetricSnapshot(captureTime, size, labels, types, values, lastTrackTimes,
+                    increments, sources, new AtomicReferenceArray<>(size), null);
+            // The columns now belong to the snapshot.
+            labels = null;
+            types = null;
+            values = null;
+            lastTrackTimes = null;
+            increments = null;
+            sources = null;
+            return snapshot;
+        }
+    }
+}
@@ -14,6 +14,7 @@ package com.adobe.aam.metrics.core.publish;
 
 import com.adobe.aam.metrics.core.config.PublisherConfig;
 import com.adobe.aam.metrics.metric.Metric;
+import com.adobe.aam.metrics.metric.MetricLabels;
 
 import java.io.IOException;
 import java.util.Collection;
@@ -22,6 +23,14 @@ public interface Publisher {
 
     void publishMetrics(Collection<Metric> metrics) throws IOException;
 
+    /**
+     * Publishes the series collected by the MetricAgent during one cycle. By default, they are published as metrics,
+     * so the publishers which do not read the snapshot columns keep working unchanged.
+     */
+    default void publishSnapshot(MetricSnapshot snapshot) throws IOException {
+        publishMetrics(snapshot.asMetrics());
+    }
+
     PublisherConfig config();
 
     default boolean isAllowed(Metric metric) {
@@ -30,5 +39,22 @@ public interface Publisher {
                 .allMatch(metricFilter -> metricFilter.isAllowed(metric));
     }
 
+    /**
+     * Filters a series of a snapshot by its labels and type, without building a metric for it.
+     */
+    default boolean isAllowed(MetricLabels labels, Metric.Type type) {
+        return config().metricFilters()
+                .stream()
+                .allMatch(metricFilter -> metricFilter.isAllowed(labels, type));
+    }
+
+    /**
+     * @return true if this publisher can carry the serialized state of sketch metrics. The others only receive the
+     * percentile series derived from the sketches.
+     */
+    default boolean acceptsSketches() {
+        return false;
+    }
+
     void shutdown();
 }
@@ -12,14 +12,17 @@
  */
 package com.adobe.aam.metrics.core.publish;
 
+import com.adobe.aam.metrics.metric.LongCounterMetric;
 import com.adobe.aam.metrics.metric.Metric;
-import com.google.common.collect.Maps;
+import com.google.common.collect.MapMaker;
 
 import java.util.Map;
 
 public class ResetCounterHelperImpl implements ResetCounterHelper {
 
-    private final Map<Metric, Double> counterOldValues = Maps.newHashMap();
+    // Weak keys, so the old value of an evicted child doesn't keep it reachable once its bucket has dropped it.
+    private final Map<Metric, Double> counterOldValues = new MapMaker().weakKeys().makeMap();
+    private final Map<Metric, Long> longCounterOldValues = new MapMaker().weakKeys().makeMap();
 
     public ResetCounterHelperImpl() {
     }
@@ -31,6 +34,19 @@ public class ResetCounterHelperImpl implements ResetCounterHelper {
     }
 
     private double getDiff(Metric metric) {
+        if (metric instanceof MetricSnapshot.CounterSeries) {
+            // The snapshot already carries the increase of the counters which are not kept as metrics.
+            return ((MetricSnapshot.CounterSeries) metric).getIncrement();
+        }
+
+        if (metric instanceof LongCounterMetric) {
+            // Compute the difference on longs, since large cumulative counters can't be represented exactly as doubles.
+            long oldValue = longCounterOldValues.getOrDefault(metric, 0L);
+            long newValue = ((LongCounterMetric) metric).getLong();
+            longCounterOldValues.put(metric, newValue);
+            return newValue - oldValue;
+        }
+
         double oldValue = counterOldValues.getOrDefault(metric, 0d);
         double newValue = metric.get();
         counterOldValues.put(metric, newValue);
@@ -14,6 +14,7 @@
 package com.adobe.aam.metrics.filter;
 
 import com.adobe.aam.metrics.metric.Metric;
+import com.adobe.aam.metrics.metric.MetricLabels;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.List;
@@ -36,9 +37,9 @@ public class BlockListMetricFilter extends SimpleRegexMetricFilter {
 	}
 
 	@Override
-	public boolean isAllowed(Metric metric) {
+	public boolean isAllowed(MetricLabels labels, Metric.Type type) {
 		return blockList.stream()
-				.noneMatch(filter -> super.filterMatches(filter, metric));
+				.noneMatch(filter -> super.filterMatches(filter, labels, type));
 	}
 
 	@Override
@@ -14,10 +14,20 @@
 package com.adobe.aam.metrics.filter;
 
 import com.adobe.aam.metrics.metric.Metric;
+import com.adobe.aam.metrics.metric.MetricLabels;
+import com.adobe.aam.metrics.metric.SimpleMetric;
 
 public interface MetricFilter {
 
     MetricFilter ALLOW_ALL = metric -> true;
 
     boolean isAllowed(Metric metric);
+
+    /**
+     * Filters a series of a {@link com.adobe.aam.metrics.core.publish.MetricSnapshot} by its labels and type. The
+     * filters which only look at those should override it, so that no metric is built for each series.
+     */
+    default boolean isAllowed(MetricLabels labels, Metric.Type type) {
+        return isAllowed(new SimpleMetric(labels, type));
+    }
 }
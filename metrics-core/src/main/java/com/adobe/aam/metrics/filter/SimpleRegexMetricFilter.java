@@ -1,24 +1,26 @@
 package com.adobe.aam.metrics.filter;
 
 import com.adobe.aam.metrics.metric.Metric;
+import com.adobe.aam.metrics.metric.MetricLabels;
+import com.adobe.aam.metrics.metric.SeriesNameCache;
 import com.yevdo.jwildcard.JWildcard;
 
 public abstract class SimpleRegexMetricFilter implements MetricFilter {
 
-    boolean filterMatches(String filter, Metric metric) {
-        final String name = getMetricName(metric).toString().toLowerCase();
-        final String fullName = getFullName(metric);
-        return JWildcard.matches(filter, name) || JWildcard.matches(filter, fullName);
-    }
+    // The names are rendered once per series, instead of twice per filter on each cycle.
+    private final SeriesNameCache names = new SeriesNameCache(
+            (labels, type) -> labels.format('.').toString().toLowerCase());
+    private final SeriesNameCache fullNames = new SeriesNameCache("", '.',
+            type -> "." + type.getName().toLowerCase());
 
-    private String getFullName(Metric metric) {
-        StringBuilder name = getMetricName(metric);
-        name.append('.').append(metric.getType().getName().toLowerCase());
-        return name.toString();
+    @Override
+    public boolean isAllowed(Metric metric) {
+        return isAllowed(metric.getLabels(), metric.getType());
     }
 
-    private StringBuilder getMetricName(Metric metric) {
-        return metric.getLabels().format('.');
+    boolean filterMatches(String filter, MetricLabels labels, Metric.Type type) {
+        final String name = names.get(labels, type).getName();
+        final String fullName = fullNames.get(labels, type).getName();
+        return JWildcard.matches(filter, name) || JWildcard.matches(filter, fullName);
     }
-
 }
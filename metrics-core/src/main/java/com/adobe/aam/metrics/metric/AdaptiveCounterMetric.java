@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A {@link LongCounterMetric} for large buckets, where most series are rarely updated and only a few are hot.
+ *
+ * The count starts in a single field of the metric, updated with a CAS, instead of a separate adder. The first time
+ * two threads collide on it, the metric inflates to one cache-line padded cell per stripe, and each thread then
+ * updates the cell of its stripe. An idle series thus costs a couple of fields, while a hot one still scales with
+ * the number of writers.
+ */
+public class AdaptiveCounterMetric extends LongCounterMetric {
+
+	private static final AtomicLongFieldUpdater<AdaptiveCounterMetric> BASE =
+			AtomicLongFieldUpdater.newUpdater(AdaptiveCounterMetric.class, "base");
+
+	// Only one out of PADDING slots is used, so that two cells never share a cache line.
+	private static final int PADDING = 8;
+	private static final int MASK = Stripes.DEFAULT - 1;
+
+	private volatile long base;
+	private volatile AtomicLongArray cells;
+
+	public AdaptiveCounterMetric(MetricLabels labels) {
+		super(labels, null);
+	}
+
+	@Override
+	public void doTrack(double value) {
+		long longValue = (long) value;
+		if (longValue == value && longValue != Long.MAX_VALUE && longValue != Long.MIN_VALUE) {
+			addLong(longValue);
+		} else {
+			doTrackFraction(value);
+		}
+	}
+
+	@Override
+	public void add(long delta) {
+		lastTrack = getClock().time();
+		addLong(delta);
+	}
+
+	private void addLong(long delta) {
+		AtomicLongArray cells = this.cells;
+		if (cells == null) {
+			long current = base;
+			if (BASE.compareAndSet(this, current, current + delta)) {
+				return;
+			}
+			cells = inflate();
+		}
+		cells.getAndAdd(Stripes.index(MASK) * PADDING, delta);
+	}
+
+	synchronized AtomicLongArray inflate() {
+		if (cells == null) {
+			cells = new AtomicLongArray((MASK + 1) * PADDING);
+		}
+		return cells;
+	}
+
+	@Override
+	public double doGetAndReset() {
+		long sum = BASE.getAndSet(this, 0);
+		AtomicLongArray cells = this.cells;
+		if (cells != null) {
+			for (int i = 0; i <= MASK; i++) {
+				sum += cells.getAndSet(i * PADDING, 0);
+			}
+		}
+		return sum + doGetAndResetFractions();
+	}
+
+	@Override
+	public double get() {
+		return sumLong() + getFractions();
+	}
+
+	@Override
+	public long getLong() {
+		return sumLong() + Math.round(getFractions());
+	}
+
+	private long sumLong() {
+		long sum = base;
+		AtomicLongArray cells = this.cells;
+		if (cells != null) {
+			for (int i = 0; i <= MASK; i++) {
+				sum += cells.get(i * PADDING);
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * @return whether the counter was contended, and spread over several cells
+	 */
+	boolean isInflated() {
+		return cells != null;
+	}
+}
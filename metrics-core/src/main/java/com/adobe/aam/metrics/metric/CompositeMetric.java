@@ -0,0 +1,33 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.metric;
+
+import java.util.Collection;
+
+/**
+ * A metric which is tracked as a whole, but reported as several series. For instance, a histogram is reported as
+ * its count, min, max, avg and percentiles.
+ *
+ * The MetricAgent expands composite metrics on each cycle, instead of reporting them as a single value.
+ */
+public interface CompositeMetric {
+
+	/**
+	 * @return the series reported for the current interval, which is reset. The parts of the underlying state may
+	 * be reset one at a time, so a value tracked during the reset can be split across two intervals (eg. counted in
+	 * one, and summed in the next). Use a {@link DoubleBufferedMetric} when every value must be reported in exactly
+	 * one interval.
+	 */
+	Collection<Metric> getAndResetSeries();
+}
@@ -13,12 +13,17 @@
 
 package com.adobe.aam.metrics.metric;
 
-import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.concurrent.atomic.DoubleAdder;
 
 public class CounterMetric extends Metric {
 
-	private final DoubleAdder sum = new DoubleAdder();
+	private static final AtomicReferenceFieldUpdater<CounterMetric, DoubleAdder> SUM =
+			AtomicReferenceFieldUpdater.newUpdater(CounterMetric.class, DoubleAdder.class, "sum");
+
+	// Created on the first update, so that the counters which are never tracked (or which track whole values
+	// elsewhere, like LongCounterMetric) don't pay for it.
+	private volatile DoubleAdder sum;
 
 	public CounterMetric(MetricLabels labels) {
 		super(labels);
@@ -26,17 +31,24 @@ public class CounterMetric extends Metric {
 
 	@Override
 	public void doTrack(double value) {
+		DoubleAdder sum = this.sum;
+		if (sum == null) {
+			SUM.compareAndSet(this, null, new DoubleAdder());
+			sum = this.sum;
+		}
 		sum.add(value);
 	}
 
 	@Override
 	public double doGetAndReset() {
-		return sum.sumThenReset();
+		DoubleAdder sum = this.sum;
+		return sum == null ? 0 : sum.sumThenReset();
 	}
 
 	@Override
 	public double get() {
-		return sum.sum();
+		DoubleAdder sum = this.sum;
+		return sum == null ? 0 : sum.sum();
 	}
 
 	public Type getType() {
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps two instances of a metric, so that each interval is reset without racing with the writers.
+ *
+ * Writers record into the active instance. On each reset, the active instance is swapped, and the previous one is
+ * drained once the writers which were still recording into it are done, so every tracked value is reported in
+ * exactly one interval, whatever the type of the metric. Writers never wait: each one announces itself in a striped
+ * counter of the instance it is about to use, and checks that the instance is still active before recording into it.
+ * Only the reset waits for the writers in flight, which takes the duration of a single update.
+ *
+ * This doubles the memory of the metric and adds two striped increments per update, so it is opt-in: create the
+ * metric with {@link #newInstance(MetricLabels, Type)}, or use a {@link com.adobe.aam.metrics.metric.bucket.DoubleBufferedMetricBucket}.
+ */
+public class DoubleBufferedMetric extends Metric {
+
+	private final Metric[] buffers;
+	private final LongAdder[] entered = {new LongAdder(), new LongAdder()};
+	private final LongAdder[] exited = {new LongAdder(), new LongAdder()};
+	volatile int active;
+
+	DoubleBufferedMetric(Metric first, Metric second) {
+		super(first.getLabels());
+		this.buffers = new Metric[]{first, second};
+	}
+
+	/**
+	 * @return a double-buffered metric of the given type. COUNT metrics are returned as is, since they are cumulative
+	 * and never reset by the MetricAgent.
+	 */
+	public static Metric newInstance(MetricLabels labels, Type type) {
+		if (type == Type.COUNT) {
+			return Metric.newInstance(labels, type);
+		}
+
+		Metric first = Metric.newInstance(labels, type);
+		Metric second = Metric.newInstance(labels, type);
+		return first instanceof CompositeMetric
+				? new Composite(first, second)
+				: new DoubleBufferedMetric(first, second);
+	}
+
+	@Override
+	public Type getType() {
+		return buffers[0].getType();
+	}
+
+	@Override
+	protected void doTrack(double value) {
+		while (true) {
+			int buffer = active;
+			entered[buffer].increment();
+			if (active == buffer) {
+				buffers[buffer].track(value);
+				exited[buffer].increment();
+				return;
+			}
+			// The buffer was swapped in the meantime, and may be drained already.
+			exited[buffer].increment();
+		}
+	}
+
+	/**
+	 * @return the value of the current interval, and starts a new one
+	 */
+	@Override
+	public double doGetAndReset() {
+		return swap().getAndReset();
+	}
+
+	/**
+	 * @return the value of the current interval
+	 */
+	@Override
+	public double get() {
+		return buffers[active].get();
+	}
+
+	/**
+	 * Makes the other buffer active, and waits for the writers still recording into the previous one.
+	 *
+	 * @return the previous buffer, which no writer uses anymore
+	 */
+	synchronized Metric swap() {
+		int previous = active;
+		active = 1 - previous;
+
+		// The exits must be read before the entries: since a writer enters before it exits, matching sums then
+		// mean that no writer which saw the previous buffer active is still recording.
+		while (exited[previous].sum() != entered[previous].sum()) {
+			Thread.yield();
+		}
+		return buffers[previous];
+	}
+
+	/**
+	 * A double-buffered {@link CompositeMetric}, such as a histogram.
+	 */
+	static class Composite extends DoubleBufferedMetric implements CompositeMetric {
+
+		// Each buffer reports its own cumulative COUNT, so their increments are merged into a single counter.
+		private final LongCounterMetric count;
+		private final double[] reportedCounts = new double[2];
+
+		Composite(Metric first, Metric second) {
+			super(first, second);
+			this.count = new LongCounterMetric(first.getLabels());
+		}
+
+		@Override
+		public synchronized Collection<Metric> getAndResetSeries() {
+			lastReset = getClock().time();
+			int previous = active;
+			Collection<Metric> series = ((CompositeMetric) swap()).getAndResetSeries();
+
+			List<Metric> merged = new ArrayList<>(series.size());
+			for (Metric serie : series) {
+				if (serie.getType() == Type.COUNT) {
+					double cumulative = serie.get();
+					double increment = cumulative - reportedCounts[previous];
+					reportedCounts[previous] = cumulative;
+					if (increment > 0) {
+						count.track(increment, serie.getLastTrackTime());
+					}
+					merged.add(count);
+				} else {
+					merged.add(serie);
+				}
+			}
+			return merged;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.metric;
+
+import com.adobe.aam.metrics.metric.histogram.HistogramSnapshot;
+import com.adobe.aam.metrics.metric.histogram.LogLinearHistogram;
+
+import java.util.Collection;
+
+/**
+ * A histogram of the tracked values, backed by a fixed-memory {@link LogLinearHistogram}. Tracking a value is
+ * lock-free and does not allocate.
+ *
+ * On each cycle, the MetricAgent reports the histogram as COUNT, MIN, MAX, AVG and PERCENTILE_50 to PERCENTILE_999
+ * series and starts a new interval.
+ */
+public class HistogramMetric extends Metric implements CompositeMetric {
+
+	private final LogLinearHistogram histogram;
+	// The COUNT series, which is cumulative, unlike the other series which describe the last interval.
+	private final LongCounterMetric count;
+
+	public HistogramMetric(String name) {
+		this(MetricLabels.of(name));
+	}
+
+	public HistogramMetric(MetricLabels labels) {
+		this(labels, new LogLinearHistogram());
+	}
+
+	/**
+	 * @param precisionBits          the number of sub-buckets per power of two, as a power of two (1 to 10). The
+	 *                               reported values have a relative error of at most 2^-(precisionBits + 1).
+	 * @param lowestDiscernibleValue the smallest value which is not counted as zero
+	 * @param highestTrackableValue  the largest value which can be told apart from larger ones
+	 */
+	public HistogramMetric(MetricLabels labels, int precisionBits, double lowestDiscernibleValue,
+						   double highestTrackableValue) {
+		this(labels, new LogLinearHistogram(precisionBits, lowestDiscernibleValue, highestTrackableValue));
+	}
+
+	private HistogramMetric(MetricLabels labels, LogLinearHistogram histogram) {
+		super(labels);
+		this.count = new LongCounterMetric(labels);
+		this.histogram = histogram;
+	}
+
+	@Override
+	public Type getType() {
+		return Type.HISTOGRAM;
+	}
+
+	@Override
+	protected void doTrack(double value) {
+		histogram.record(value);
+	}
+
+	/**
+	 * @return the average of the current interval, and starts a new one
+	 */
+	@Override
+	public double doGetAndReset() {
+		return histogram.snapshotAndReset().getMean();
+	}
+
+	/**
+	 * @return the average of the current interval
+	 */
+	@Override
+	public double get() {
+		return histogram.snapshot().getMean();
+	}
+
+	/**
+	 * @return the values tracked during the current interval
+	 */
+	public HistogramSnapshot getSnapshot() {
+		return histogram.snapshot();
+	}
+
+	@Override
+	public Collection<Metric> getAndResetSeries() {
+		lastReset = getClock().time();
+		return histogram.snapshotAndReset().toMetrics(getLabels(), getLastTrackTime(), count);
+	}
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Interns the label names and values of the metrics, so that the labels of all the buckets share a single instance
+ * of each string (eg. of a hostname or a customer id), and keeps the UTF-8 bytes of each one, so that series names
+ * are encoded by copying bytes instead of concatenating strings.
+ *
+ * The dictionary is bounded, so that a label with an unbounded number of values can't grow it forever. Once it is
+ * full, new strings are no longer interned: they are returned as they are, and encoded from their own bytes. Nothing
+ * is evicted, since evicting the strings which are still used would only make the dictionary thrash and share
+ * nothing. Lookups and insertions take no lock.
+ */
+public final class LabelDictionary {
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final LabelDictionary DEFAULT = new LabelDictionary(DEFAULT_CAPACITY);
+
+    private final ConcurrentMap<String, Label> labels = new ConcurrentHashMap<>();
+    private final int capacity;
+    // The number of interned strings, reserved before inserting them so that the capacity is never exceeded.
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * @param capacity the maximum number of interned strings
+     */
+    public LabelDictionary(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return the dictionary shared by the buckets of the process
+     */
+    public static LabelDictionary getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @return the interned label of the given string, or a label which is not interned if the dictionary is full
+     */
+    public Label getLabel(String value) {
+        Label label = tryIntern(value);
+        return label != null ? label : new Label(value);
+    }
+
+    /**
+     * @return the shared instance of the given string, or the string itself if the dictionary is full
+     */
+    public String intern(String value) {
+        Label label = tryIntern(value);
+        return label != null ? label.getValue() : value;
+    }
+
+    /**
+     * @return labels equal to the given ones, holding the shared instances of their label values. The other fields,
+     * including the list of label names, are kept as they are, so they stay shared with the parent labels.
+     */
+    public MetricLabels intern(MetricLabels labels) {
+        ImmutableMetricLabels interned = ImmutableMetricLabels.copyOf(labels);
+        Optional<String> preLabelValue = labels.preLabelValue();
+        if (preLabelValue.isPresent()) {
+            // The with methods keep an equal value as it is, so it is cleared before setting the interned one.
+            interned = interned.withPreLabelValue(Optional.empty()).withPreLabelValue(intern(preLabelValue.get()));
+        }
+
+        List<String> postLabelValues = labels.postLabelValues();
+        if (!postLabelValues.isEmpty()) {
+            String[] values = new String[postLabelValues.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = intern(postLabelValues.get(i));
+            }
+            interned = interned.withPostLabelValues(values);
+        }
+        return interned;
+    }
+
+    /**
+     * @return the UTF-8 bytes of {@link MetricLabels#format(char)}, copied from the bytes of the interned strings
+     */
+    public byte[] encode(MetricLabels labels, char delim) {
+        if (delim > 0x7f) {
+            throw new IllegalArgumentException("The delimiter must be an ASCII character: " + delim);
+        }
+
+        Optional<String> preLabelName = labels.preLabelName();
+        Optional<String> preLabelValue = labels.preLabelValue();
+        List<String> postLabelNames = labels.postLabelNames();
+        List<String> postLabelValues = labels.postLabelValues();
+
+        // Same layout as MetricLabels.format: the labels of the name, each preceded by the delimiter but the first.
+        Label[] parts = new Label[3 + 2 * postLabelValues.size()];
+        int count = 0;
+        if (preLabelName.isPresent()) {
+            parts[count++] = getLabel(preLabelName.get());
+        }
+        if (preLabelValue.isPresent()) {
+            parts[count++] = getLabel(preLabelValue.get());
+        }
+        parts[count++] = getLabel(labels.metricName());
+        for (int i = 0; i < postLabelValues.size(); i++) {
+            if (i < postLabelNames.size()) {
+                parts[count++] = getLabel(postLabelNames.get(i));
+            }
+            parts[count++] = getLabel(postLabelValues.get(i));
+        }
+
+        int length = count - 1;
+        for (int i = 0; i < count; i++) {
+            length += parts[i].bytes.length;
+        }
+
+        byte[] encoded = new byte[length];
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                encoded[offset++] = (byte) delim;
+            }
+            byte[] bytes = parts[i].bytes;
+            System.arraycopy(bytes, 0, encoded, offset, bytes.length);
+            offset += bytes.length;
+        }
+        return encoded;
+    }
+
+    /**
+     * @return the number of interned strings
+     */
+    public int size() {
+        return labels.size();
+    }
+
+    /**
+     * @return the interned label of the given string, or null if it is not interned and the dictionary is full
+     */
+    private Label tryIntern(String value) {
+        Label label = labels.get(value);
+        if (label != null) {
+            return label;
+        }
+
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            return null;
+        }
+
+        label = new Label(value);
+        Label existing = labels.putIfAbsent(value, label);
+        if (existing != null) {
+            size.decrementAndGet();
+            return existing;
+        }
+        return label;
+    }
+
+    /**
+     * An interned string, with its UTF-8 bytes.
+     */
+    public static final class Label {
+
+        private final String value;
+        private final byte[] bytes;
+
+        private Label(String value) {
+            this.value = value;
+            this.bytes = value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A COUNT metric for integral increments. Whole values are accumulated in a {@link LongAdder}, so they are exact up
+ * to Long.MAX_VALUE instead of 2^53, and {@link #add(long)} does not convert to double at all. Fractional values
+ * are still accepted, and accumulated separately.
+ */
+public class LongCounterMetric extends CounterMetric {
+
+	private final LongAdder longSum;
+
+	public LongCounterMetric(MetricLabels labels) {
+		this(labels, new LongAdder());
+	}
+
+	/**
+	 * For subclasses which accumulate the whole values themselves, and override every method using the adder.
+	 */
+	LongCounterMetric(MetricLabels labels, LongAdder longSum) {
+		super(labels);
+		this.longSum = longSum;
+	}
+
+	@Override
+	public void doTrack(double value) {
+		long longValue = (long) value;
+		if (longValue == value && longValue != Long.MAX_VALUE && longValue != Long.MIN_VALUE) {
+			longSum.add(longValue);
+		} else {
+			super.doTrack(value);
+		}
+	}
+
+	@Override
+	public double doGetAndReset() {
+		return longSum.sumThenReset() + super.doGetAndReset();
+	}
+
+	@Override
+	public double get() {
+		return longSum.sum() + super.get();
+	}
+
+	/**
+	 * @return the exact sum of the whole values, plus the fractional values rounded to the nearest long
+	 */
+	public long getLong() {
+		return longSum.sum() + Math.round(super.get());
+	}
+
+	@Override
+	public void add(long delta) {
+		lastTrack = getClock().time();
+		longSum.add(delta);
+	}
+
+	// The fractional values, for the subclasses which accumulate the whole values themselves.
+
+	final void doTrackFraction(double value) {
+		super.doTrack(value);
+	}
+
+	final double doGetAndResetFractions() {
+		return super.doGetAndReset();
+	}
+
+	final double getFractions() {
+		return super.get();
+	}
+}
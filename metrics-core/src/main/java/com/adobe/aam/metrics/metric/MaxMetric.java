@@ -13,12 +13,16 @@
 
 package com.adobe.aam.metrics.metric;
 
-import com.google.common.util.concurrent.AtomicDouble;
-
-import java.util.List;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 public class MaxMetric extends Metric {
-	private AtomicDouble max = new AtomicDouble(Metric.NEGATIVE_INFINITY);
+	private static final long RESET_BITS = Double.doubleToRawLongBits(Metric.NEGATIVE_INFINITY);
+
+	private static final AtomicLongFieldUpdater<MaxMetric> MAX =
+			AtomicLongFieldUpdater.newUpdater(MaxMetric.class, "max");
+
+	// The raw bits of the current max value, so that updates can be done with a plain compare-and-set.
+	private volatile long max = RESET_BITS;
 
 	public MaxMetric(MetricLabels labels) {
 		super(labels);
@@ -30,20 +34,28 @@ public class MaxMetric extends Metric {
 	}
 
 	@Override
-	public synchronized void doTrack(double value) {
-		if (value > max.get()) {
-			max.set(value);
+	public void doTrack(double value) {
+		long newBits = Double.doubleToRawLongBits(value);
+		while (true) {
+			long currentBits = max;
+			if (!(value > Double.longBitsToDouble(currentBits))) {
+				// Most updates don't set a new maximum, so they exit without writing anything.
+				return;
+			}
+			if (MAX.compareAndSet(this, currentBits, newBits)) {
+				return;
+			}
 		}
 	}
 
 	@Override
 	public double doGetAndReset() {
-		double value = max.getAndSet(Metric.NEGATIVE_INFINITY);
+		double value = Double.longBitsToDouble(MAX.getAndSet(this, RESET_BITS));
 		return value == NEGATIVE_INFINITY ? 0 : value;
 	}
 
 	@Override
 	public double get() {
-		return max.get();
+		return Double.longBitsToDouble(max);
 	}
 }
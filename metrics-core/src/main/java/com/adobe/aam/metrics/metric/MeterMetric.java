@@ -0,0 +1,167 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import com.adobe.aam.metrics.clock.Clock;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the rate of events, like a Codahale meter, without depending on Codahale.
+ *
+ * Marking an event only increments a striped counter. The exponentially-weighted moving averages are updated once
+ * per MetricAgent cycle, from the events marked since the previous cycle, instead of checking the time on each mark.
+ *
+ * On each cycle, the MetricAgent reports the meter as a cumulative COUNT, and as MEAN_RATE, RATE_1MIN, RATE_5MIN and
+ * RATE_15MIN series, in events per second.
+ */
+public class MeterMetric extends Metric implements CompositeMetric {
+
+	private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+	private static final Type[] RATE_TYPES = {Type.RATE_1MIN, Type.RATE_5MIN, Type.RATE_15MIN};
+	private static final long[] RATE_WINDOWS = {
+			TimeUnit.MINUTES.toNanos(1),
+			TimeUnit.MINUTES.toNanos(5),
+			TimeUnit.MINUTES.toNanos(15)
+	};
+
+	private final LongCounterMetric count;
+	private final Clock clock;
+	private final long startTick;
+	private final double[] rates = new double[RATE_WINDOWS.length];
+	private long lastTick;
+	private long lastCount;
+	private boolean initialized;
+
+	public MeterMetric(String name) {
+		this(MetricLabels.of(name));
+	}
+
+	public MeterMetric(MetricLabels labels) {
+		this(labels, Clock.SYSTEM);
+	}
+
+	/**
+	 * @param clock the source of the ticks used to compute the rates
+	 */
+	public MeterMetric(MetricLabels labels, Clock clock) {
+		super(labels);
+		this.count = new LongCounterMetric(labels);
+		this.clock = clock;
+		this.startTick = clock.tick();
+		this.lastTick = startTick;
+	}
+
+	@Override
+	public Type getType() {
+		return Type.METER;
+	}
+
+	/**
+	 * Marks the occurrence of an event.
+	 */
+	public void mark() {
+		mark(1);
+	}
+
+	/**
+	 * Marks the occurrence of the given number of events.
+	 */
+	public void mark(long events) {
+		count.add(events);
+		lastTrack = count.lastTrack;
+	}
+
+	/**
+	 * Marks the occurrence of the given number of events.
+	 */
+	@Override
+	protected void doTrack(double value) {
+		count.track(value);
+	}
+
+	/**
+	 * @return the number of events marked since the meter was created
+	 */
+	public long getCount() {
+		return count.getLong();
+	}
+
+	/**
+	 * @return the one-minute rate, as of the last cycle
+	 */
+	@Override
+	public synchronized double get() {
+		return rates[0];
+	}
+
+	/**
+	 * Updates the rates with the events marked since the last cycle.
+	 *
+	 * @return the one-minute rate
+	 */
+	@Override
+	public double doGetAndReset() {
+		return tick()[0];
+	}
+
+	/**
+	 * @return the average rate since the meter was created
+	 */
+	public double getMeanRate() {
+		long elapsed = clock.tick() - startTick;
+		return elapsed <= 0 ? 0 : getCount() * NANOS_PER_SECOND / elapsed;
+	}
+
+	@Override
+	public Collection<Metric> getAndResetSeries() {
+		lastReset = getClock().time();
+		double[] rates = tick();
+
+		ImmutableList.Builder<Metric> series = ImmutableList.<Metric>builder()
+				.add(count)
+				.add(new SimpleMetric(getLabels(), Type.MEAN_RATE, getMeanRate(), getLastTrackTime()));
+		for (int i = 0; i < RATE_TYPES.length; i++) {
+			series.add(new SimpleMetric(getLabels(), RATE_TYPES[i], rates[i], getLastTrackTime()));
+		}
+		return series.build();
+	}
+
+	/**
+	 * Folds the events marked since the previous tick into the moving averages. The first tick starts the averages
+	 * at the observed rate, so they don't have to climb from zero.
+	 */
+	private synchronized double[] tick() {
+		long now = clock.tick();
+		long elapsed = now - lastTick;
+		if (elapsed <= 0) {
+			return rates.clone();
+		}
+
+		long total = count.getLong();
+		double instantRate = (total - lastCount) * NANOS_PER_SECOND / elapsed;
+		for (int i = 0; i < rates.length; i++) {
+			double alpha = 1 - Math.exp(-(double) elapsed / RATE_WINDOWS[i]);
+			rates[i] = initialized ? rates[i] + alpha * (instantRate - rates[i]) : instantRate;
+		}
+
+		initialized = true;
+		lastTick = now;
+		lastCount = total;
+		return rates.clone();
+	}
+}
@@ -13,6 +13,8 @@
 
 package com.adobe.aam.metrics.metric;
 
+import com.adobe.aam.metrics.clock.Clock;
+import com.adobe.aam.metrics.clock.CoarseClock;
 import com.google.common.base.Optional;
 
 /**
@@ -22,6 +24,7 @@ public abstract class Metric {
 
 	public static final double POSITIVE_INFINITY = Long.MAX_VALUE;
 	public static final double NEGATIVE_INFINITY = Long.MIN_VALUE;
+	private static volatile Clock clock = CoarseClock.getDefault();
 	private final MetricLabels labels;
 	long lastTrack;
 	long lastReset;
@@ -51,6 +54,11 @@ public abstract class Metric {
 		RATE_5MIN("rate_", 5),
 		RATE_15MIN("rate_", 15),
 		MEAN_RATE("mean_rate"),
+		HISTOGRAM("histogram"),
+		SKETCH("sketch"),
+		TIMER("timer"),
+		METER("meter"),
+		DISTINCT_COUNT("distinct"),
 		GAUGE("");
 
 		private final String name;
@@ -117,18 +125,45 @@ public abstract class Metric {
 	public static Metric newInstance(MetricLabels labels, Type type) {
 		switch (type) {
 			case COUNT:
-				return new CounterMetric(labels);
+				return new AdaptiveCounterMetric(labels);
 			case MIN:
 				return new MinMetric(labels);
 			case MAX:
 				return new MaxMetric(labels);
 			case AVG:
-				return new AverageMetric(labels);
+				return new StripedAverageMetric(labels);
+			case STANDARD_DEVIATION:
+				return new StandardDeviationMetric(labels);
+			case HISTOGRAM:
+				return new HistogramMetric(labels);
+			case SKETCH:
+				return new SketchMetric(labels);
+			case TIMER:
+				return new TimerMetric(labels);
+			case METER:
+				return new MeterMetric(labels);
+			case DISTINCT_COUNT:
+				return new DistinctCountMetric(labels);
 			default:
 				return new SimpleMetric(labels, type);
 		}
 	}
 
+	/**
+	 * @return the clock used for the track and reset times of all metrics
+	 */
+	public static Clock getClock() {
+		return clock;
+	}
+
+	/**
+	 * Replaces the clock used for the track and reset times of all metrics. By default, a {@link CoarseClock} is
+	 * used, so tracking a value does not read the system time. Tests can use a clock they advance by hand instead.
+	 */
+	public static void setClock(Clock clock) {
+		Metric.clock = clock;
+	}
+
 	/**
 	 * @return the metric type, such as counter, average, min, max
 	 */
@@ -143,7 +178,17 @@ public abstract class Metric {
 	 * @param value the desired value to be tracked in this metric
 	 */
 	public void track(double value) {
-		lastTrack = System.currentTimeMillis();
+		lastTrack = clock.time();
+		doTrack(value);
+	}
+
+	/**
+	 * Tracks a value recorded at the given time, such as the values of a {@link MetricRecorder} committed together.
+	 *
+	 * @param time the wall clock time of the value, in milliseconds since the epoch
+	 */
+	public void track(double value, long time) {
+		lastTrack = time;
 		doTrack(value);
 	}
 
@@ -164,7 +209,7 @@ public abstract class Metric {
 	 * @return the metric value and resets it atomically
 	 */
 	public double getAndReset() {
-		lastReset = System.currentTimeMillis();
+		lastReset = clock.time();
 		return doGetAndReset();
 	}
 
@@ -5,7 +5,11 @@ import org.immutables.value.Value;
 import java.util.List;
 import java.util.Optional;
 
-@Value.Immutable
+/**
+ * The name and labels of a metric. The hash code is computed once, when the labels are built, since they are the
+ * keys of the bucket maps.
+ */
+@Value.Immutable(prehash = true)
 public interface MetricLabels {
 
     String metricName();
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers the updates of a unit of work, such as a request, and applies them to their metrics at once, when the unit
+ * of work is done.
+ *
+ * <pre>
+ * MetricRecorder recorder = MetricRecorder.current();
+ * recorder.increment(requests);
+ * recorder.track(requestSize, request.getBodySize());
+ * ...
+ * recorder.commit();
+ * </pre>
+ *
+ * The updates are kept in flat arrays. The updates of the same COUNT, MIN or MAX metric are combined as they are
+ * recorded, so a shared counter incremented several times by the request is only updated once. All the updates of a
+ * commit get the same timestamp, and the clock is read once per commit instead of once per update.
+ *
+ * A recorder is not thread-safe, and is meant to be reused: {@link #current()} returns the recorder of the current
+ * thread.
+ */
+public class MetricRecorder {
+
+	private static final int INITIAL_CAPACITY = 16;
+	private static final ThreadLocal<MetricRecorder> CURRENT = ThreadLocal.withInitial(MetricRecorder::new);
+
+	private Metric[] metrics = new Metric[INITIAL_CAPACITY];
+	private double[] values = new double[INITIAL_CAPACITY];
+	private int size;
+
+	/**
+	 * @return the recorder of the current thread
+	 */
+	public static MetricRecorder current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Records a value, to be tracked by the given metric on commit.
+	 */
+	public MetricRecorder track(Metric metric, double value) {
+		Metric.Type type = metric.getType();
+		if (type == Metric.Type.COUNT || type == Metric.Type.MIN || type == Metric.Type.MAX) {
+			for (int i = 0; i < size; i++) {
+				if (metrics[i] == metric) {
+					values[i] = combine(type, values[i], value);
+					return this;
+				}
+			}
+		}
+
+		if (size == metrics.length) {
+			metrics = Arrays.copyOf(metrics, size * 2);
+			values = Arrays.copyOf(values, size * 2);
+		}
+		metrics[size] = metric;
+		values[size] = value;
+		size++;
+		return this;
+	}
+
+	private static double combine(Metric.Type type, double current, double value) {
+		switch (type) {
+			case MIN:
+				return Math.min(current, value);
+			case MAX:
+				return Math.max(current, value);
+			default:
+				return current + value;
+		}
+	}
+
+	/**
+	 * Records an increment of the given counter.
+	 */
+	public MetricRecorder increment(Metric counter) {
+		return track(counter, 1);
+	}
+
+	/**
+	 * Records a duration, to be tracked by the given timer on commit.
+	 */
+	public MetricRecorder record(TimerMetric timer, long duration, TimeUnit unit) {
+		return track(timer, timer.toReportingUnit(duration, unit));
+	}
+
+	/**
+	 * @return the number of pending updates
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Tracks the recorded values into their metrics, with the current time, and clears the recorder.
+	 */
+	public void commit() {
+		if (size == 0) {
+			return;
+		}
+
+		long time = Metric.getClock().time();
+		try {
+			for (int i = 0; i < size; i++) {
+				metrics[i].track(values[i], time);
+			}
+		} finally {
+			clear();
+		}
+	}
+
+	/**
+	 * Drops the recorded values, eg. when the request failed and should not be reported.
+	 */
+	public void clear() {
+		// Release the metrics, so that the recorder doesn't keep evicted bucket children alive.
+		Arrays.fill(metrics, 0, size, null);
+		size = 0;
+	}
+}
@@ -13,12 +13,16 @@
 
 package com.adobe.aam.metrics.metric;
 
-import com.google.common.util.concurrent.AtomicDouble;
-
-import java.util.List;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 public class MinMetric extends Metric {
-	private AtomicDouble min = new AtomicDouble(Metric.POSITIVE_INFINITY);
+	private static final long RESET_BITS = Double.doubleToRawLongBits(Metric.POSITIVE_INFINITY);
+
+	private static final AtomicLongFieldUpdater<MinMetric> MIN =
+			AtomicLongFieldUpdater.newUpdater(MinMetric.class, "min");
+
+	// The raw bits of the current min value, so that updates can be done with a plain compare-and-set.
+	private volatile long min = RESET_BITS;
 
 	public MinMetric(MetricLabels labels) {
 		super(labels);
@@ -30,20 +34,28 @@ public class MinMetric extends Metric {
 	}
 
 	@Override
-	public synchronized void doTrack(double value) {
-		if (value < min.get()) {
-			min.set(value);
+	public void doTrack(double value) {
+		long newBits = Double.doubleToRawLongBits(value);
+		while (true) {
+			long currentBits = min;
+			if (!(value < Double.longBitsToDouble(currentBits))) {
+				// Most updates don't set a new minimum, so they exit without writing anything.
+				return;
+			}
+			if (MIN.compareAndSet(this, currentBits, newBits)) {
+				return;
+			}
 		}
 	}
 
 	@Override
 	public double doGetAndReset() {
-		double value = min.getAndSet(Metric.POSITIVE_INFINITY);
+		double value = Double.longBitsToDouble(MIN.getAndSet(this, RESET_BITS));
 		return value == POSITIVE_INFINITY ? 0 : value;
 	}
 
 	@Override
 	public double get() {
-		return min.get();
+		return Double.longBitsToDouble(min);
 	}
 }
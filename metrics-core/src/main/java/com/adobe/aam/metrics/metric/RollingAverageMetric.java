@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The average of the values tracked during a sliding time window, eg. the average latency of the last 5 minutes.
+ */
+public class RollingAverageMetric extends RollingMetric {
+
+	public RollingAverageMetric(MetricLabels labels, Duration window) {
+		this(labels, window, DEFAULT_SLICES);
+	}
+
+	public RollingAverageMetric(MetricLabels labels, Duration window, int slices) {
+		super(labels, window, slices, 2);
+	}
+
+	@Override
+	public Type getType() {
+		return Type.AVG;
+	}
+
+	@Override
+	protected void record(AtomicLongArray ring, int index, double value) {
+		addDouble(ring, index, value);
+		ring.incrementAndGet(index + 1);
+	}
+
+	@Override
+	protected void reset(AtomicLongArray ring, int index) {
+		ring.set(index, Double.doubleToRawLongBits(0));
+		ring.set(index + 1, 0);
+	}
+
+	/**
+	 * @return the average of the values tracked during the window, or 0 if there were none
+	 */
+	@Override
+	public double get() {
+		AtomicLongArray ring = ring();
+		long epoch = currentEpoch();
+		double sum = 0;
+		long count = 0;
+		for (int slot = 0; slot < slices(); slot++) {
+			int index = valueIndex(slot, epoch);
+			if (index >= 0) {
+				sum += Double.longBitsToDouble(ring.get(index));
+				count += ring.get(index + 1);
+			}
+		}
+		return count == 0 ? 0 : sum / count;
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The sum of the values tracked during a sliding time window, eg. the number of requests of the last minute. It is
+ * reported as a GAUGE, since it goes up and down and must not be treated as a cumulative counter.
+ */
+public class RollingCounterMetric extends RollingMetric {
+
+	public RollingCounterMetric(MetricLabels labels, Duration window) {
+		this(labels, window, DEFAULT_SLICES);
+	}
+
+	public RollingCounterMetric(MetricLabels labels, Duration window, int slices) {
+		super(labels, window, slices, 1);
+	}
+
+	@Override
+	public Type getType() {
+		return Type.GAUGE;
+	}
+
+	public void increment() {
+		track(1);
+	}
+
+	@Override
+	protected void record(AtomicLongArray ring, int index, double value) {
+		addDouble(ring, index, value);
+	}
+
+	@Override
+	protected void reset(AtomicLongArray ring, int index) {
+		ring.set(index, Double.doubleToRawLongBits(0));
+	}
+
+	/**
+	 * @return the sum of the values tracked during the window
+	 */
+	@Override
+	public double get() {
+		AtomicLongArray ring = ring();
+		long epoch = currentEpoch();
+		double sum = 0;
+		for (int slot = 0; slot < slices(); slot++) {
+			int index = valueIndex(slot, epoch);
+			if (index >= 0) {
+				sum += Double.longBitsToDouble(ring.get(index));
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * @return the sum of the window, per second
+	 */
+	public double getRate() {
+		return get() * 1000 / getWindow().toMillis();
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The maximum of the values tracked during a sliding time window, eg. the highest latency of the last 30 seconds.
+ */
+public class RollingMaxMetric extends RollingMetric {
+
+	private static final long RESET_BITS = Double.doubleToRawLongBits(Double.NEGATIVE_INFINITY);
+
+	public RollingMaxMetric(MetricLabels labels, Duration window) {
+		this(labels, window, DEFAULT_SLICES);
+	}
+
+	public RollingMaxMetric(MetricLabels labels, Duration window, int slices) {
+		super(labels, window, slices, 1);
+	}
+
+	@Override
+	public Type getType() {
+		return Type.MAX;
+	}
+
+	@Override
+	protected void record(AtomicLongArray ring, int index, double value) {
+		long newBits = Double.doubleToRawLongBits(value);
+		while (true) {
+			long currentBits = ring.get(index);
+			if (!(value > Double.longBitsToDouble(currentBits)) || ring.compareAndSet(index, currentBits, newBits)) {
+				return;
+			}
+		}
+	}
+
+	@Override
+	protected void reset(AtomicLongArray ring, int index) {
+		ring.set(index, RESET_BITS);
+	}
+
+	/**
+	 * @return the maximum of the values tracked during the window, or 0 if there were none
+	 */
+	@Override
+	public double get() {
+		AtomicLongArray ring = ring();
+		long epoch = currentEpoch();
+		double max = Double.NEGATIVE_INFINITY;
+		for (int slot = 0; slot < slices(); slot++) {
+			int index = valueIndex(slot, epoch);
+			if (index >= 0) {
+				max = Math.max(max, Double.longBitsToDouble(ring.get(index)));
+			}
+		}
+		return max == Double.NEGATIVE_INFINITY ? 0 : max;
+	}
+}
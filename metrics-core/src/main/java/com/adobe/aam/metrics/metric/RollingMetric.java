@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A metric which aggregates the values tracked during a sliding time window, instead of since the last reset.
+ *
+ * The window is split into a ring of time slices. Each slice is stored in one AtomicLongArray as its epoch (the index
+ * of the time slice it currently holds) followed by its values. The writer that first enters a new time slice
+ * recycles the oldest slot: it marks the slot as resetting with a compare-and-set on its epoch, clears its values and
+ * publishes the new epoch. The other writers of that slice briefly wait for it, so nothing is ever locked.
+ *
+ * Reading combines the slots whose epoch falls within the window, in O(slices) and without allocating, so it can be
+ * used on the request path (eg. for load shedding). The window covers the current, partial, time slice and the
+ * previous slices - 1 complete ones. Rolling metrics are never reset: the MetricAgent reports their current value.
+ */
+public abstract class RollingMetric extends Metric {
+
+	public static final int DEFAULT_SLICES = 10;
+
+	private static final long EMPTY = Long.MIN_VALUE;
+	private static final long RESETTING = -1;
+
+	private final AtomicLongArray ring;
+	private final int slices;
+	private final int stride;
+	private final long sliceMs;
+
+	/**
+	 * @param window     the duration of the window
+	 * @param slices     the number of time slices in the window. More slices make the window slide more smoothly.
+	 * @param valueWords the number of longs each slice needs to store its values
+	 */
+	protected RollingMetric(MetricLabels labels, Duration window, int slices, int valueWords) {
+		super(labels);
+		if (slices <= 0) {
+			throw new IllegalArgumentException("The number of slices must be positive: " + slices);
+		}
+		if (window.toMillis() < slices) {
+			throw new IllegalArgumentException("The window must be at least one millisecond per slice: " + window);
+		}
+
+		this.slices = slices;
+		this.stride = 1 + valueWords;
+		this.sliceMs = window.toMillis() / slices;
+		this.ring = new AtomicLongArray(slices * stride);
+		for (int slot = 0; slot < slices; slot++) {
+			ring.set(slot * stride, EMPTY);
+			reset(ring, slot * stride + 1);
+		}
+	}
+
+	/**
+	 * @return the duration covered by the window
+	 */
+	public Duration getWindow() {
+		return Duration.ofMillis(sliceMs * slices);
+	}
+
+	@Override
+	protected final void doTrack(double value) {
+		record(ring, currentSlot(), value);
+	}
+
+	/**
+	 * Rolling metrics are not reset.
+	 *
+	 * @return the value of the window
+	 */
+	@Override
+	public double doGetAndReset() {
+		return get();
+	}
+
+	/**
+	 * Adds a value to the slice whose values start at the given index.
+	 */
+	protected abstract void record(AtomicLongArray ring, int index, double value);
+
+	/**
+	 * Clears the values of the slice which start at the given index.
+	 */
+	protected abstract void reset(AtomicLongArray ring, int index);
+
+	/**
+	 * @return the epoch of the current time slice, to be passed to {@link #valueIndex(int, long)}
+	 */
+	protected final long currentEpoch() {
+		return getClock().time() / sliceMs;
+	}
+
+	protected final int slices() {
+		return slices;
+	}
+
+	protected final AtomicLongArray ring() {
+		return ring;
+	}
+
+	/**
+	 * @param slot  a slot of the ring, between 0 and slices - 1
+	 * @param epoch the current epoch
+	 * @return the index of the values of the slot, or -1 if the slot does not hold a slice of the window
+	 */
+	protected final int valueIndex(int slot, long epoch) {
+		long slotEpoch = ring.get(slot * stride);
+		return slotEpoch != RESETTING && slotEpoch > epoch - slices ? slot * stride + 1 : -1;
+	}
+
+	private int currentSlot() {
+		long epoch = currentEpoch();
+		int base = (int) (epoch % slices) * stride;
+		while (true) {
+			long slotEpoch = ring.get(base);
+			if (slotEpoch >= epoch) {
+				// A slot ahead of the epoch means this thread read the time just before a new slice started.
+				return base + 1;
+			}
+			if (slotEpoch == RESETTING) {
+				Thread.yield();
+				continue;
+			}
+			if (ring.compareAndSet(base, slotEpoch, RESETTING)) {
+				reset(ring, base + 1);
+				ring.set(base, epoch);
+				return base + 1;
+			}
+		}
+	}
+
+	/**
+	 * Adds a value to the double stored as raw bits at the given index.
+	 */
+	protected static void addDouble(AtomicLongArray ring, int index, double value) {
+		while (true) {
+			long currentBits = ring.get(index);
+			long newBits = Double.doubleToRawLongBits(Double.longBitsToDouble(currentBits) + value);
+			if (ring.compareAndSet(index, currentBits, newBits)) {
+				return;
+			}
+		}
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The minimum of the values tracked during a sliding time window, eg. the lowest free memory of the last 30 seconds.
+ */
+public class RollingMinMetric extends RollingMetric {
+
+	private static final long RESET_BITS = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+
+	public RollingMinMetric(MetricLabels labels, Duration window) {
+		this(labels, window, DEFAULT_SLICES);
+	}
+
+	public RollingMinMetric(MetricLabels labels, Duration window, int slices) {
+		super(labels, window, slices, 1);
+	}
+
+	@Override
+	public Type getType() {
+		return Type.MIN;
+	}
+
+	@Override
+	protected void record(AtomicLongArray ring, int index, double value) {
+		long newBits = Double.doubleToRawLongBits(value);
+		while (true) {
+			long currentBits = ring.get(index);
+			if (!(value < Double.longBitsToDouble(currentBits)) || ring.compareAndSet(index, currentBits, newBits)) {
+				return;
+			}
+		}
+	}
+
+	@Override
+	protected void reset(AtomicLongArray ring, int index) {
+		ring.set(index, RESET_BITS);
+	}
+
+	/**
+	 * @return the minimum of the values tracked during the window, or 0 if there were none
+	 */
+	@Override
+	public double get() {
+		AtomicLongArray ring = ring();
+		long epoch = currentEpoch();
+		double min = Double.POSITIVE_INFINITY;
+		for (int slot = 0; slot < slices(); slot++) {
+			int index = valueIndex(slot, epoch);
+			if (index >= 0) {
+				min = Math.min(min, Double.longBitsToDouble(ring.get(index)));
+			}
+		}
+		return min == Double.POSITIVE_INFINITY ? 0 : min;
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Keeps the rendered names of the series of a publisher (or of a filter), so that they are only built the first time
+ * a series is published, instead of on each cycle.
+ *
+ * The names are keyed by the labels of the series, compared by equality, and by the type of the series. So the
+ * series whose labels are built again on each cycle (eg. the metrics read from a Codahale registry) hit the cache as
+ * well. The labels cache their hash code, so a lookup costs a hash table probe and an equality check of the labels.
+ * A name is kept until its series is evicted by its bucket, which calls {@link #invalidate(MetricLabels)}, so the
+ * caches only hold the names of the series which are still reported.
+ */
+public class SeriesNameCache {
+
+    private static final Metric.Type[] TYPES = Metric.Type.values();
+    // Every cache in use, held weakly so that a cache goes away with its publisher or filter.
+    private static final Set<SeriesNameCache> CACHES =
+            Collections.newSetFromMap(new MapMaker().weakKeys().<SeriesNameCache, Boolean>makeMap());
+
+    private final ConcurrentMap<MetricLabels, SeriesName[]> names;
+    private final BiFunction<MetricLabels, Metric.Type, SeriesName> renderer;
+
+    /**
+     * Renders the names as the prefix, the labels formatted with the given delimiter and the suffix of the type (eg.
+     * prod.myapp. + request.succeeded + .count), from the cached bytes of the {@link LabelDictionary}.
+     */
+    public SeriesNameCache(String prefix, char delimiter, Function<Metric.Type, String> typeSuffix) {
+        this.names = Maps.newConcurrentMap();
+        byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+        byte[][] suffixBytes = new byte[TYPES.length][];
+        for (Metric.Type type : TYPES) {
+            suffixBytes[type.ordinal()] = typeSuffix.apply(type).getBytes(StandardCharsets.UTF_8);
+        }
+
+        this.renderer = (labels, type) -> {
+            byte[] labelBytes = LabelDictionary.getDefault().encode(labels, delimiter);
+            byte[] suffix = suffixBytes[type.ordinal()];
+
+            byte[] bytes = new byte[prefixBytes.length + labelBytes.length + suffix.length];
+            System.arraycopy(prefixBytes, 0, bytes, 0, prefixBytes.length);
+            System.arraycopy(labelBytes, 0, bytes, prefixBytes.length, labelBytes.length);
+            System.arraycopy(suffix, 0, bytes, prefixBytes.length + labelBytes.length, suffix.length);
+            return new SeriesName(new String(bytes, StandardCharsets.UTF_8), bytes);
+        };
+        CACHES.add(this);
+    }
+
+    /**
+     * Renders the names with the given function.
+     */
+    public SeriesNameCache(BiFunction<MetricLabels, Metric.Type, String> renderer) {
+        this.names = Maps.newConcurrentMap();
+        this.renderer = (labels, type) -> {
+            String name = renderer.apply(labels, type);
+            return new SeriesName(name, name.getBytes(StandardCharsets.UTF_8));
+        };
+        CACHES.add(this);
+    }
+
+    /**
+     * Drops the names of the series with the given labels from every cache, once the series is evicted. They are
+     * rendered again if the series comes back.
+     */
+    public static void invalidate(MetricLabels labels) {
+        for (SeriesNameCache cache : CACHES) {
+            cache.names.remove(labels);
+        }
+    }
+
+    public SeriesName get(Metric metric) {
+        return get(metric.getLabels(), metric.getType());
+    }
+
+    public SeriesName get(MetricLabels labels, Metric.Type type) {
+        SeriesName[] byType = names.get(labels);
+        if (byType == null) {
+            byType = new SeriesName[TYPES.length];
+            SeriesName[] existing = names.putIfAbsent(labels, byType);
+            if (existing != null) {
+                byType = existing;
+            }
+        }
+
+        SeriesName name = byType[type.ordinal()];
+        if (name == null) {
+            // Concurrent callers may both render the name, which is harmless since they render the same one.
+            name = renderer.apply(labels, type);
+            byType[type.ordinal()] = name;
+        }
+        return name;
+    }
+
+    /**
+     * @return the number of series whose names are cached
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * The rendered name of a series, as a String and as UTF-8 bytes.
+     */
+    public static final class SeriesName {
+
+        private final String name;
+        private final byte[] bytes;
+
+        private SeriesName(String name, byte[] bytes) {
+            this.name = name;
+            this.bytes = bytes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the number of bytes of the UTF-8 encoding of the name
+         */
+        public int getEncodedLength() {
+            return bytes.length;
+        }
+
+        /**
+         * Copies the UTF-8 encoding of the name to the given array.
+         *
+         * @return the offset following the copied bytes
+         */
+        public int copyTo(byte[] destination, int offset) {
+            System.arraycopy(bytes, 0, destination, offset, bytes.length);
+            return offset + bytes.length;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
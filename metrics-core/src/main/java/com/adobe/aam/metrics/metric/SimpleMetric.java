@@ -13,14 +13,16 @@
 
 package com.adobe.aam.metrics.metric;
 
-import com.google.common.util.concurrent.AtomicDouble;
-
-import java.util.List;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 public class SimpleMetric extends Metric {
 
+	private static final AtomicLongFieldUpdater<SimpleMetric> VALUE_BITS =
+			AtomicLongFieldUpdater.newUpdater(SimpleMetric.class, "valueBits");
+
 	private final Type type;
-	private final AtomicDouble value;
+	// The raw bits of the value, held in the metric itself rather than in a separate atomic object.
+	private volatile long valueBits;
 
 	public SimpleMetric(String metricName, Type type) {
 		this(MetricLabels.of(metricName), type);
@@ -35,7 +37,7 @@ public class SimpleMetric extends Metric {
 	}
 
 	public SimpleMetric(MetricLabels labels, Type type, double value) {
-		this(labels, type, value, System.currentTimeMillis());
+		this(labels, type, value, getClock().time());
 	}
 
 
@@ -47,23 +49,23 @@ public class SimpleMetric extends Metric {
 	public SimpleMetric(MetricLabels labels, Type type, double value, long lastTrack) {
 		super(labels);
 		this.type = type;
-		this.value = new AtomicDouble(value);
+		this.valueBits = Double.doubleToRawLongBits(value);
 		super.lastTrack = lastTrack;
 	}
 
 	@Override
 	public void doTrack(double value) {
-		this.value.set(value);
+		this.valueBits = Double.doubleToRawLongBits(value);
 	}
 
 	@Override
 	public double doGetAndReset() {
-		return value.getAndSet(0);
+		return Double.longBitsToDouble(VALUE_BITS.getAndSet(this, Double.doubleToRawLongBits(0)));
 	}
 
 	@Override
 	public double get() {
-		return value.get();
+		return Double.longBitsToDouble(valueBits);
 	}
 
 	public Type getType() {
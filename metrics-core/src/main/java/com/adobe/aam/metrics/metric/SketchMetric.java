@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.metric;
+
+import com.adobe.aam.metrics.metric.histogram.QuantileSketch;
+import com.adobe.aam.metrics.metric.histogram.SketchSnapshot;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Collection;
+
+/**
+ * A distribution of the tracked values, backed by a mergeable {@link QuantileSketch}.
+ *
+ * On each cycle, the MetricAgent reports the sketch as COUNT, MIN, MAX, AVG and PERCENTILE_50 to PERCENTILE_999
+ * series, for the publishers which only handle plain values, and as a {@link SketchStateMetric} holding the
+ * serialized sketch, for the publishers which accept sketches. Unlike the percentile series, the sketches of several
+ * hosts can be merged into correct fleet-wide percentiles.
+ *
+ * A sketch metric can have a parent, such as the parent of a {@link com.adobe.aam.metrics.metric.bucket.MetricBucket}.
+ * The values tracked by a child are then also reported by the parent, which merges the sketches of its children
+ * when they are collected, instead of tracking each value twice.
+ */
+public class SketchMetric extends Metric implements CompositeMetric {
+
+	private final QuantileSketch sketch;
+	// The COUNT series, which is cumulative, unlike the other series which describe the last interval.
+	private final LongCounterMetric count;
+	private final SketchMetric parent;
+	private final Object pendingLock = new Object();
+	private SketchSnapshot pending;
+
+	public SketchMetric(String name) {
+		this(MetricLabels.of(name));
+	}
+
+	public SketchMetric(MetricLabels labels) {
+		this(labels, QuantileSketch.DEFAULT_RELATIVE_ACCURACY);
+	}
+
+	/**
+	 * @param relativeAccuracy the maximum relative error of the reported percentiles (eg. 0.01 for 1%)
+	 */
+	public SketchMetric(MetricLabels labels, double relativeAccuracy) {
+		this(labels, new QuantileSketch(relativeAccuracy, QuantileSketch.DEFAULT_MIN_VALUE,
+				QuantileSketch.DEFAULT_MAX_VALUE), null);
+	}
+
+	/**
+	 * Creates a child metric, whose values are also reported by the given parent.
+	 */
+	public SketchMetric(MetricLabels labels, SketchMetric parent) {
+		this(labels, new QuantileSketch(parent.getRelativeAccuracy(), QuantileSketch.DEFAULT_MIN_VALUE,
+				QuantileSketch.DEFAULT_MAX_VALUE), parent);
+	}
+
+	private SketchMetric(MetricLabels labels, QuantileSketch sketch, SketchMetric parent) {
+		super(labels);
+		this.count = new LongCounterMetric(labels);
+		this.sketch = sketch;
+		this.parent = parent;
+	}
+
+	@Override
+	public Type getType() {
+		return Type.SKETCH;
+	}
+
+	public double getRelativeAccuracy() {
+		return sketch.getRelativeAccuracy();
+	}
+
+	@Override
+	protected void doTrack(double value) {
+		sketch.record(value);
+	}
+
+	/**
+	 * @return the average of the current interval, and starts a new one
+	 */
+	@Override
+	public double doGetAndReset() {
+		return drain().toHistogramSnapshot().getMean();
+	}
+
+	/**
+	 * @return the average of the values tracked by this metric during the current interval
+	 */
+	@Override
+	public double get() {
+		return sketch.snapshot().toHistogramSnapshot().getMean();
+	}
+
+	/**
+	 * @return the values tracked by this metric during the current interval, not including the children
+	 */
+	public SketchSnapshot getSnapshot() {
+		return sketch.snapshot();
+	}
+
+	@Override
+	public Collection<Metric> getAndResetSeries() {
+		lastReset = getClock().time();
+		SketchSnapshot snapshot = drain();
+		return ImmutableList.<Metric>builder()
+				.addAll(snapshot.toHistogramSnapshot().toMetrics(getLabels(), getLastTrackTime(), count))
+				.add(new SketchStateMetric(getLabels(), snapshot, getLastTrackTime()))
+				.build();
+	}
+
+	/**
+	 * Resets the sketch, and hands its values over to the parent. The parent also reports the values its children
+	 * handed over since its last collection.
+	 */
+	private SketchSnapshot drain() {
+		SketchSnapshot snapshot = sketch.snapshotAndReset();
+		if (parent != null) {
+			parent.mergeFromChild(snapshot, getLastTrackTime());
+		}
+
+		synchronized (pendingLock) {
+			if (pending != null) {
+				snapshot = snapshot.merge(pending);
+				pending = null;
+			}
+		}
+		return snapshot;
+	}
+
+	private void mergeFromChild(SketchSnapshot snapshot, long childLastTrack) {
+		if (snapshot.getCount() == 0) {
+			return;
+		}
+
+		synchronized (pendingLock) {
+			pending = pending == null ? snapshot : pending.merge(snapshot);
+			lastTrack = Math.max(lastTrack, childLastTrack);
+		}
+	}
+}
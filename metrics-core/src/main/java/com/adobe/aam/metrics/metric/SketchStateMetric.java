@@ -0,0 +1,40 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.metric;
+
+import com.adobe.aam.metrics.metric.histogram.SketchSnapshot;
+
+/**
+ * The state of a {@link SketchMetric} for one interval. Its value is the number of tracked values, and the sketch
+ * itself can be serialized with {@link #toByteArray()} and merged by the consumer.
+ *
+ * Sketch states are only sent to the publishers which accept sketches.
+ */
+public class SketchStateMetric extends SimpleMetric {
+
+	private final SketchSnapshot snapshot;
+
+	public SketchStateMetric(MetricLabels labels, SketchSnapshot snapshot, long lastTrack) {
+		super(labels, Type.SKETCH, snapshot.getCount(), lastTrack);
+		this.snapshot = snapshot;
+	}
+
+	public SketchSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	public byte[] toByteArray() {
+		return snapshot.toByteArray();
+	}
+}
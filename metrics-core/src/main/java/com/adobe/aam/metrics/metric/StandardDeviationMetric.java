@@ -0,0 +1,193 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks the mean and standard deviation of the values of each interval.
+ *
+ * Writers never lock nor wait: like {@link StripedAverageMetric}, they add into the striped adders of the active
+ * interval, and each reset makes the other interval active and drains the previous one once the writers still
+ * recording into it are done. An interval sums the values and their squares shifted by the first value it received,
+ * so the variance does not lose its precision to large values whose deviations are small.
+ *
+ * On each cycle, the MetricAgent reports the metric as AVG, STANDARD_DEVIATION and COUNT series and starts a new
+ * interval. The standard deviation is the sample standard deviation, or 0 for less than two values. Like every COUNT
+ * series, the count is cumulative: it's reported by the same metric on every cycle, and never reset.
+ */
+public class StandardDeviationMetric extends Metric implements CompositeMetric {
+
+	private final Interval[] intervals = {new Interval(), new Interval()};
+	private volatile int active;
+	// The COUNT series, which is cumulative, unlike the AVG and STANDARD_DEVIATION series of the last interval.
+	private final LongCounterMetric count;
+
+	public StandardDeviationMetric(String name) {
+		this(MetricLabels.of(name));
+	}
+
+	public StandardDeviationMetric(MetricLabels labels) {
+		super(labels);
+		this.count = new LongCounterMetric(labels);
+	}
+
+	@Override
+	public Type getType() {
+		return Type.STANDARD_DEVIATION;
+	}
+
+	@Override
+	public void doTrack(double value) {
+		while (true) {
+			int index = active;
+			Interval interval = intervals[index];
+			interval.entered.increment();
+			if (active == index) {
+				interval.add(value);
+				return;
+			}
+			// The interval was swapped in the meantime, and may be drained already.
+			interval.aborted.increment();
+		}
+	}
+
+	/**
+	 * @return the standard deviation of the current interval, and starts a new one
+	 */
+	@Override
+	public double doGetAndReset() {
+		return swap().getStandardDeviation();
+	}
+
+	/**
+	 * @return the standard deviation of the current interval, which may not include the updates in flight
+	 */
+	@Override
+	public double get() {
+		return intervals[active].stats().getStandardDeviation();
+	}
+
+	/**
+	 * @return the average of the current interval
+	 */
+	public double getMean() {
+		return intervals[active].stats().mean;
+	}
+
+	/**
+	 * @return the number of values tracked during the current interval
+	 */
+	public long getCount() {
+		return intervals[active].stats().count;
+	}
+
+	@Override
+	public Collection<Metric> getAndResetSeries() {
+		lastReset = getClock().time();
+		Stats total = swap();
+		if (total.count > 0) {
+			count.track(total.count, getLastTrackTime());
+		}
+		return ImmutableList.of(
+				new SimpleMetric(getLabels(), Type.AVG, total.mean, getLastTrackTime()),
+				new SimpleMetric(getLabels(), Type.STANDARD_DEVIATION, total.getStandardDeviation(), getLastTrackTime()),
+				count
+		);
+	}
+
+	private synchronized Stats swap() {
+		int previous = active;
+		active = 1 - previous;
+		return intervals[previous].drain();
+	}
+
+	private static final class Interval {
+
+		private static final AtomicLongFieldUpdater<Interval> SHIFT_BITS =
+				AtomicLongFieldUpdater.newUpdater(Interval.class, "shiftBits");
+		private static final long UNSET = Double.doubleToRawLongBits(Double.NaN);
+
+		private final LongAdder entered = new LongAdder();
+		private final LongAdder aborted = new LongAdder();
+		// Cumulative, since a writer increments it when it's done: entered = count + aborted once no one is in flight.
+		private final LongAdder count = new LongAdder();
+		// The sums of the values and of their squares, once shifted.
+		private final DoubleAdder sum = new DoubleAdder();
+		private final DoubleAdder squares = new DoubleAdder();
+		// The first value of the interval, which is subtracted from all its values.
+		private volatile long shiftBits = UNSET;
+		private long reportedCount;
+
+		void add(double value) {
+			long bits = shiftBits;
+			if (bits == UNSET) {
+				SHIFT_BITS.compareAndSet(this, UNSET, Double.doubleToRawLongBits(value));
+				bits = shiftBits;
+			}
+			double shifted = value - Double.longBitsToDouble(bits);
+			sum.add(shifted);
+			squares.add(shifted * shifted);
+			count.increment();
+		}
+
+		Stats stats() {
+			return new Stats(count.sum() - reportedCount, shiftBits, sum.sum(), squares.sum());
+		}
+
+		/**
+		 * Waits for the writers still recording into this interval, which is no longer active, and resets it.
+		 */
+		Stats drain() {
+			// The exits must be read before the entries: since a writer enters before it exits, matching sums then
+			// mean that no writer which saw this interval active is still recording.
+			while (count.sum() + aborted.sum() != entered.sum()) {
+				Thread.yield();
+			}
+
+			long total = count.sum();
+			Stats stats = new Stats(total - reportedCount, shiftBits, sum.sumThenReset(), squares.sumThenReset());
+			reportedCount = total;
+			shiftBits = UNSET;
+			return stats;
+		}
+	}
+
+	private static final class Stats {
+		final long count;
+		final double mean;
+		final double variance;
+
+		Stats(long count, long shiftBits, double sum, double squares) {
+			this.count = count;
+			if (count == 0 || shiftBits == Interval.UNSET) {
+				this.mean = 0;
+				this.variance = 0;
+			} else {
+				this.mean = Double.longBitsToDouble(shiftBits) + sum / count;
+				this.variance = count < 2 ? 0 : Math.max(0, (squares - sum * sum / count) / (count - 1));
+			}
+		}
+
+		double getStandardDeviation() {
+			return Math.sqrt(variance);
+		}
+	}
+}
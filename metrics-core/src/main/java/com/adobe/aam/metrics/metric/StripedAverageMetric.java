@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.metric;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An AVG metric which accumulates its sum and count in striped adders, instead of serializing every update through a
+ * single mutex like {@link AverageMetric}.
+ *
+ * Writers never lock nor wait: they add into the adders of the active interval, like {@link DoubleBufferedMetric}.
+ * On each reset, the other interval becomes active, and the previous one is drained once the writers which were
+ * still recording into it are done, so getAndReset() always returns an average built from a consistent sum and count.
+ * Only the reset waits for the writers in flight, which takes the duration of a single update.
+ */
+public class StripedAverageMetric extends Metric {
+
+	private final Interval[] intervals = {new Interval(), new Interval()};
+	private volatile int active;
+
+	public StripedAverageMetric(MetricLabels labels) {
+		super(labels);
+	}
+
+	@Override
+	public Type getType() {
+		return Type.AVG;
+	}
+
+	@Override
+	public void doTrack(double value) {
+		while (true) {
+			int index = active;
+			Interval interval = intervals[index];
+			interval.entered.increment();
+			if (active == index) {
+				interval.sum.add(value);
+				interval.count.increment();
+				return;
+			}
+			// The interval was swapped in the meantime, and may be drained already.
+			interval.aborted.increment();
+		}
+	}
+
+	/**
+	 * @return the average of the current interval, and starts a new one
+	 */
+	@Override
+	public synchronized double doGetAndReset() {
+		int previous = active;
+		active = 1 - previous;
+		return intervals[previous].drain();
+	}
+
+	/**
+	 * @return the average of the current interval, which may not include the updates in flight
+	 */
+	@Override
+	public synchronized double get() {
+		return intervals[active].getAverage();
+	}
+
+	private static final class Interval {
+		private final LongAdder entered = new LongAdder();
+		private final LongAdder aborted = new LongAdder();
+		// Cumulative, since a writer increments it when it's done: entered = count + aborted once no one is in flight.
+		private final LongAdder count = new LongAdder();
+		private final DoubleAdder sum = new DoubleAdder();
+		private long reportedCount;
+
+		double getAverage() {
+			long intervalCount = count.sum() - reportedCount;
+			return intervalCount == 0 ? 0 : sum.sum() / intervalCount;
+		}
+
+		/**
+		 * Waits for the writers still recording into this interval, which is no longer active, and resets it.
+		 */
+		double drain() {
+			// The exits must be read before the entries: since a writer enters before it exits, matching sums then
+			// mean that no writer which saw this interval active is still recording.
+			while (count.sum() + aborted.sum() != entered.sum()) {
+				Thread.yield();
+			}
+
+			long total = count.sum();
+			long intervalCount = total - reportedCount;
+			reportedCount = total;
+			double intervalSum = sum.sumThenReset();
+			return intervalCount == 0 ? 0 : intervalSum / intervalCount;
+		}
+	}
+}
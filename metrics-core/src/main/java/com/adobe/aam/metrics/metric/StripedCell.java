@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.metric;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A cache-line padded cell guarding a group of fields which must be updated together (eg. a sum and a count).
+ * Writers only ever try to acquire a cell and move on to another stripe when it's busy, so they never wait on
+ * each other. Readers acquire every cell in turn to get a consistent view of its fields.
+ *
+ * Subclasses are expected to declare their fields followed by enough padding to fill the cache line.
+ */
+abstract class StripedCell {
+
+	private static final AtomicIntegerFieldUpdater<StripedCell> BUSY =
+			AtomicIntegerFieldUpdater.newUpdater(StripedCell.class, "busy");
+
+	// Padding against false sharing with whatever precedes the cell on the heap.
+	long p1, p2, p3, p4, p5, p6, p7;
+
+	private volatile int busy;
+
+	final boolean tryLock() {
+		return busy == 0 && BUSY.compareAndSet(this, 0, 1);
+	}
+
+	final void lock() {
+		while (!tryLock()) {
+			Thread.yield();
+		}
+	}
+
+	final void unlock() {
+		busy = 0;
+	}
+}
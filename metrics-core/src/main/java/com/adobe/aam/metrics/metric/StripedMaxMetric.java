@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.metric;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A MAX metric for very hot series. Each stripe keeps the maximum of the values written to it, on its own cache
+ * line, and the stripes are combined at read time. Use {@link MaxMetric} for regular series, since this one
+ * allocates a cache line per stripe up front.
+ */
+public class StripedMaxMetric extends Metric {
+
+	private static final long RESET_BITS = Double.doubleToRawLongBits(Metric.NEGATIVE_INFINITY);
+
+	// Only one out of PADDING slots is used, so that two stripes never share a cache line.
+	private static final int PADDING = 8;
+
+	private final AtomicLongArray stripes;
+	private final int mask;
+
+	public StripedMaxMetric(MetricLabels labels) {
+		this(labels, Stripes.DEFAULT);
+	}
+
+	/**
+	 * @param stripes the number of stripes (rounded up to a power of two)
+	 */
+	public StripedMaxMetric(MetricLabels labels, int stripes) {
+		super(labels);
+		int size = Stripes.ceilingPowerOfTwo(stripes);
+		this.mask = size - 1;
+		this.stripes = new AtomicLongArray(size * PADDING);
+		for (int i = 0; i < size; i++) {
+			this.stripes.set(i * PADDING, RESET_BITS);
+		}
+	}
+
+	@Override
+	public Type getType() {
+		return Type.MAX;
+	}
+
+	@Override
+	public void doTrack(double value) {
+		long newBits = Double.doubleToRawLongBits(value);
+		int stripe = Stripes.index(mask);
+		while (true) {
+			int slot = stripe * PADDING;
+			long currentBits = stripes.get(slot);
+			if (!(value > Double.longBitsToDouble(currentBits))) {
+				// The stripe already holds a value at least as large, so the overall maximum can't change.
+				return;
+			}
+			if (stripes.compareAndSet(slot, currentBits, newBits)) {
+				return;
+			}
+			stripe = Stripes.next(stripe, mask);
+		}
+	}
+
+	@Override
+	public double doGetAndReset() {
+		double max = Metric.NEGATIVE_INFINITY;
+		for (int stripe = 0; stripe <= mask; stripe++) {
+			max = Math.max(max, Double.longBitsToDouble(stripes.getAndSet(stripe * PADDING, RESET_BITS)));
+		}
+		return max == NEGATIVE_INFINITY ? 0 : max;
+	}
+
+	@Override
+	public double get() {
+		double max = Metric.NEGATIVE_INFINITY;
+		for (int stripe = 0; stripe <= mask; stripe++) {
+			max = Math.max(max, Double.longBitsToDouble(stripes.get(stripe * PADDING)));
+		}
+		return max;
+	}
+}
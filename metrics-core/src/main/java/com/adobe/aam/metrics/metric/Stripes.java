@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.metric;
+
+/**
+ * Spreads concurrent writers over several memory cells, so that hot metrics don't turn into a single point of
+ * contention. Each thread starts from a stripe derived from its id and moves on to the next stripe when the
+ * current one is busy.
+ */
+final class Stripes {
+
+	/**
+	 * The default number of stripes: the number of CPUs rounded up to a power of two, capped at 64.
+	 */
+	static final int DEFAULT = Math.min(64, ceilingPowerOfTwo(Runtime.getRuntime().availableProcessors()));
+
+	private Stripes() {
+	}
+
+	/**
+	 * @param mask the number of stripes minus one (the number of stripes must be a power of two)
+	 * @return the stripe the current thread should try first
+	 */
+	static int index(int mask) {
+		return mix(Thread.currentThread().getId()) & mask;
+	}
+
+	/**
+	 * @return the stripe to try after the given one turned out to be busy
+	 */
+	static int next(int index, int mask) {
+		return (index + 1) & mask;
+	}
+
+	static int ceilingPowerOfTwo(int value) {
+		return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+	}
+
+	private static int mix(long id) {
+		long h = id * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
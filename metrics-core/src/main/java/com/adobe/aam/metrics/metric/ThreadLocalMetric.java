@@ -0,0 +1,225 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A COUNT or AVG metric for the hottest series, where even striped adders are too slow. Each thread records into its
+ * own accumulator, which no other thread writes to, and the accumulators are merged when the metric is collected.
+ *
+ * A thread publishes its sum and count with ordered stores around a version number, like a seqlock, so recording
+ * needs neither a CAS nor a memory fence. The collector keeps, for each accumulator, the sum and count it already
+ * reported, and reports the difference. The accumulators of the threads which died are collected one last time and
+ * then dropped, so their partial counts are not lost. The last track time is kept per thread as well, so recording
+ * never writes to this shared object.
+ *
+ * This costs a thread-local lookup per update and one accumulator per thread and metric, so it is opt-in: create the
+ * metric with {@link #newInstance(MetricLabels, Type)}.
+ */
+public class ThreadLocalMetric extends Metric {
+
+	private final Type type;
+	private final ThreadLocal<Accumulator> accumulators = ThreadLocal.withInitial(this::register);
+	private final ConcurrentLinkedQueue<Accumulator> all = new ConcurrentLinkedQueue<>();
+
+	// The values of the dead threads which were not reported yet. Only used by the collector.
+	private double deadSum;
+	private long deadCount;
+
+	private ThreadLocalMetric(MetricLabels labels, Type type) {
+		super(labels);
+		this.type = type;
+	}
+
+	/**
+	 * @param type COUNT or AVG
+	 * @throws IllegalArgumentException for the other types, whose values can't be merged from partial sums
+	 */
+	public static ThreadLocalMetric newInstance(MetricLabels labels, Type type) {
+		if (type != Type.COUNT && type != Type.AVG) {
+			throw new IllegalArgumentException("Only COUNT and AVG metrics can be accumulated per thread, not " + type);
+		}
+		return new ThreadLocalMetric(labels, type);
+	}
+
+	@Override
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Records the value and its track time into the accumulator of the current thread only: unlike the other metrics,
+	 * the last track time is not stored in this shared object, but taken from the accumulators when it's read.
+	 */
+	@Override
+	public void track(double value) {
+		accumulators.get().add(value, getClock().time());
+	}
+
+	@Override
+	public void track(double value, long time) {
+		accumulators.get().add(value, time);
+	}
+
+	@Override
+	protected void doTrack(double value) {
+		track(value);
+	}
+
+	/**
+	 * @return the latest track time of all the threads
+	 */
+	@Override
+	public synchronized long getLastTrackTime() {
+		long latest = lastTrack;
+		for (Accumulator accumulator : all) {
+			latest = Math.max(latest, accumulator.lastTrack);
+		}
+		return latest;
+	}
+
+	private Accumulator register() {
+		Accumulator accumulator = new Accumulator(Thread.currentThread());
+		all.add(accumulator);
+		return accumulator;
+	}
+
+	/**
+	 * @return the sum (COUNT) or the average (AVG) of the values tracked since the last reset, and starts a new
+	 * interval
+	 */
+	@Override
+	public double doGetAndReset() {
+		return collect(true);
+	}
+
+	@Override
+	public double get() {
+		return collect(false);
+	}
+
+	private synchronized double collect(boolean reset) {
+		double sum = deadSum;
+		long count = deadCount;
+
+		Iterator<Accumulator> iterator = all.iterator();
+		while (iterator.hasNext()) {
+			Accumulator accumulator = iterator.next();
+			// Read whether the thread is alive first: once it is dead, the values read next are its final ones.
+			boolean dead = !accumulator.isOwnerAlive();
+			accumulator.read();
+
+			double sumDelta = accumulator.readSum - accumulator.reportedSum;
+			long countDelta = accumulator.readCount - accumulator.reportedCount;
+			sum += sumDelta;
+			count += countDelta;
+
+			if (dead) {
+				// Keep the track time of the dead thread, which is only read from the accumulators otherwise.
+				lastTrack = Math.max(lastTrack, accumulator.lastTrack);
+				iterator.remove();
+				if (!reset) {
+					deadSum += sumDelta;
+					deadCount += countDelta;
+				}
+			} else if (reset) {
+				accumulator.reportedSum = accumulator.readSum;
+				accumulator.reportedCount = accumulator.readCount;
+			}
+		}
+
+		if (reset) {
+			deadSum = 0;
+			deadCount = 0;
+		}
+
+		if (type == Type.COUNT) {
+			return sum;
+		}
+		return count == 0 ? 0 : sum / count;
+	}
+
+	/**
+	 * The values recorded by one thread.
+	 */
+	private static final class Accumulator {
+
+		private static final AtomicLongFieldUpdater<Accumulator> VERSION =
+				AtomicLongFieldUpdater.newUpdater(Accumulator.class, "version");
+		private static final AtomicLongFieldUpdater<Accumulator> SUM_BITS =
+				AtomicLongFieldUpdater.newUpdater(Accumulator.class, "sumBits");
+		private static final AtomicLongFieldUpdater<Accumulator> COUNT =
+				AtomicLongFieldUpdater.newUpdater(Accumulator.class, "count");
+		private static final AtomicLongFieldUpdater<Accumulator> LAST_TRACK =
+				AtomicLongFieldUpdater.newUpdater(Accumulator.class, "lastTrack");
+
+		private final WeakReference<Thread> owner;
+
+		// Only written by the owner, with ordered stores: the version is odd while an update is in progress.
+		private volatile long version;
+		private volatile long sumBits;
+		private volatile long count;
+		// Only written when the (coarse) time changed, which is rare compared to the updates.
+		private volatile long lastTrack;
+
+		// Only used by the collector.
+		private double readSum;
+		private long readCount;
+		private double reportedSum;
+		private long reportedCount;
+
+		Accumulator(Thread owner) {
+			this.owner = new WeakReference<>(owner);
+		}
+
+		void add(double value, long time) {
+			if (time > lastTrack) {
+				LAST_TRACK.lazySet(this, time);
+			}
+
+			long version = this.version;
+			VERSION.lazySet(this, version + 1);
+			SUM_BITS.lazySet(this, Double.doubleToRawLongBits(Double.longBitsToDouble(sumBits) + value));
+			COUNT.lazySet(this, count + 1);
+			VERSION.lazySet(this, version + 2);
+		}
+
+		/**
+		 * Reads a consistent sum and count, retrying while the owner is updating them.
+		 */
+		void read() {
+			while (true) {
+				long before = version;
+				double sum = Double.longBitsToDouble(sumBits);
+				long count = this.count;
+				if ((before & 1) == 0 && version == before) {
+					readSum = sum;
+					readCount = count;
+					return;
+				}
+				Thread.yield();
+			}
+		}
+
+		boolean isOwnerAlive() {
+			Thread thread = owner.get();
+			return thread != null && thread.isAlive();
+		}
+	}
+}
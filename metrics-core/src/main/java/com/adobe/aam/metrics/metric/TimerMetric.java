@@ -0,0 +1,200 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.metric;
+
+import com.adobe.aam.metrics.clock.Clock;
+import com.adobe.aam.metrics.metric.histogram.HistogramSnapshot;
+import com.adobe.aam.metrics.metric.histogram.LogLinearHistogram;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures durations with nanosecond resolution and records them into a {@link LogLinearHistogram}, in the
+ * reporting unit (milliseconds by default).
+ *
+ * <pre>
+ * try (TimerMetric.Context ignored = timer.time()) {
+ *     // timed work
+ * }
+ * </pre>
+ *
+ * Each thread reuses a single context for all the timers, which stacks the running timings of the thread, so timing
+ * does not allocate once the thread has timed something. The context only references a timer while it runs, so a
+ * pooled thread does not keep the timers it used reachable. Contexts can be nested on the same thread, even for
+ * different timers, and must be closed in reverse order. The {@link #start()}/{@link #stop(long)} pair can be used
+ * instead when the start and stop happen on different threads.
+ *
+ * On each cycle, the MetricAgent reports the timer as COUNT, MIN, MAX, AVG and PERCENTILE_50 to PERCENTILE_999
+ * series and starts a new interval.
+ */
+public class TimerMetric extends Metric implements CompositeMetric {
+
+	private static final ThreadLocal<Context> CONTEXTS = ThreadLocal.withInitial(Context::new);
+
+	private final LogLinearHistogram histogram = new LogLinearHistogram();
+	// The COUNT series, which is cumulative, unlike the other series which describe the last interval.
+	private final LongCounterMetric count;
+	private final Clock clock;
+	private final double nanosPerUnit;
+
+	public TimerMetric(String name) {
+		this(MetricLabels.of(name));
+	}
+
+	public TimerMetric(MetricLabels labels) {
+		this(labels, TimeUnit.MILLISECONDS, Clock.SYSTEM);
+	}
+
+	/**
+	 * @param unit  the unit of the reported durations
+	 * @param clock the source of the start and stop ticks
+	 */
+	public TimerMetric(MetricLabels labels, TimeUnit unit, Clock clock) {
+		super(labels);
+		this.count = new LongCounterMetric(labels);
+		this.clock = clock;
+		this.nanosPerUnit = unit.toNanos(1);
+	}
+
+	@Override
+	public Type getType() {
+		return Type.TIMER;
+	}
+
+	/**
+	 * Starts timing on the current thread.
+	 *
+	 * @return the context of the current thread, which stops the timer when closed
+	 */
+	public Context time() {
+		Context context = CONTEXTS.get();
+		context.push(this, clock.tick());
+		return context;
+	}
+
+	/**
+	 * @return the start tick, to be passed to {@link #stop(long)}
+	 */
+	public long start() {
+		return clock.tick();
+	}
+
+	/**
+	 * Records the time elapsed since the given start tick.
+	 *
+	 * @return the elapsed time, in nanoseconds
+	 */
+	public long stop(long startTick) {
+		long elapsed = clock.tick() - startTick;
+		record(elapsed, TimeUnit.NANOSECONDS);
+		return elapsed;
+	}
+
+	/**
+	 * Records a duration measured elsewhere.
+	 */
+	public void record(long duration, TimeUnit unit) {
+		track(toReportingUnit(duration, unit));
+	}
+
+	/**
+	 * @return the given duration, in the reporting unit of this timer
+	 */
+	double toReportingUnit(long duration, TimeUnit unit) {
+		return unit.toNanos(duration) / nanosPerUnit;
+	}
+
+	/**
+	 * Records a duration, in the reporting unit of this timer.
+	 */
+	@Override
+	protected void doTrack(double value) {
+		histogram.record(value);
+	}
+
+	/**
+	 * @return the average duration of the current interval, and starts a new one
+	 */
+	@Override
+	public double doGetAndReset() {
+		return histogram.snapshotAndReset().getMean();
+	}
+
+	/**
+	 * @return the average duration of the current interval
+	 */
+	@Override
+	public double get() {
+		return histogram.snapshot().getMean();
+	}
+
+	/**
+	 * @return the durations recorded during the current interval
+	 */
+	public HistogramSnapshot getSnapshot() {
+		return histogram.snapshot();
+	}
+
+	@Override
+	public Collection<Metric> getAndResetSeries() {
+		lastReset = getClock().time();
+		return histogram.snapshotAndReset().toMetrics(getLabels(), getLastTrackTime(), count);
+	}
+
+	/**
+	 * The timing handle of one thread, shared by all the timers. Closing it records the time elapsed since the
+	 * matching {@link #time()} call, into the timer of that call.
+	 */
+	public static final class Context implements AutoCloseable {
+
+		private TimerMetric[] timers = new TimerMetric[4];
+		private long[] startTicks = new long[4];
+		private int depth;
+
+		private Context() {
+		}
+
+		private void push(TimerMetric timer, long startTick) {
+			if (depth == startTicks.length) {
+				timers = Arrays.copyOf(timers, depth * 2);
+				startTicks = Arrays.copyOf(startTicks, depth * 2);
+			}
+			timers[depth] = timer;
+			startTicks[depth++] = startTick;
+		}
+
+		/**
+		 * Stops the innermost running timing of this thread and records it.
+		 *
+		 * @return the elapsed time, in nanoseconds
+		 * @throws IllegalStateException if no timer is running on this thread
+		 */
+		public long stop() {
+			if (depth == 0) {
+				throw new IllegalStateException("No timer is running on this thread.");
+			}
+			TimerMetric timer = timers[--depth];
+			// The thread no longer references the timer once it is stopped.
+			timers[depth] = null;
+			return timer.stop(startTicks[depth]);
+		}
+
+		@Override
+		public void close() {
+			stop();
+		}
+	}
+}
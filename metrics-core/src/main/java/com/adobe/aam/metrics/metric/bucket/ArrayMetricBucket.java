@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric.bucket;
+
+import com.adobe.aam.metrics.metric.ImmutableMetricLabels;
+import com.adobe.aam.metrics.metric.LabelDictionary;
+import com.adobe.aam.metrics.metric.Metric;
+import com.adobe.aam.metrics.metric.MetricLabels;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A bucket whose children are known upfront, and created with the bucket in an array. Looking up a child is then a
+ * plain array access, without building labels, hashing or allocating.
+ *
+ * Like the children of a {@link MetricBucketImpl}, which are created when they are first looked up, a child is only
+ * reported once it was looked up, so the values which never occur are not published.
+ */
+public abstract class ArrayMetricBucket implements MetricBucket {
+
+    private final MetricLabels parentLabels;
+    private final Metric parent;
+    private final Metric[] children;
+    // 1 for the children which were looked up.
+    private final AtomicIntegerArray used;
+    // Set when a child is used for the first time, so that the reported children are listed again.
+    private volatile boolean changed;
+    private volatile List<Metric> metrics;
+
+    /**
+     * @param labelValues the label value of each child, in the order of their indexes
+     */
+    protected ArrayMetricBucket(String name, Metric.Type type, String postLabelName, List<String> labelValues) {
+        ImmutableMetricLabels.Builder labels = ImmutableMetricLabels.builder().metricName(name);
+        if (postLabelName != null) {
+            labels.addPostLabelNames(postLabelName);
+        }
+        this.parentLabels = labels.build();
+        this.parent = Metric.newInstance(parentLabels, type);
+
+        this.children = new Metric[labelValues.size()];
+        for (int i = 0; i < children.length; i++) {
+            children[i] = Metric.newInstance(ImmutableMetricLabels.copyOf(parentLabels)
+                    .withPostLabelValues(LabelDictionary.getDefault().intern(labelValues.get(i))), type);
+        }
+        this.used = new AtomicIntegerArray(children.length);
+        this.metrics = ImmutableList.of(parent);
+    }
+
+    /**
+     * @return the child at the given index, which must be in the bounds of the bucket
+     */
+    protected Metric getChild(int index) {
+        if (used.get(index) == 0) {
+            used.set(index, 1);
+            changed = true;
+        }
+        return children[index];
+    }
+
+    /**
+     * @return the children which were looked up, followed by the parent
+     */
+    @Override
+    public Collection<Metric> getMetrics() {
+        if (changed) {
+            // A child used while they are listed sets the flag again, and is listed on the next call.
+            changed = false;
+            ImmutableList.Builder<Metric> builder = ImmutableList.builder();
+            for (int i = 0; i < children.length; i++) {
+                if (used.get(i) != 0) {
+                    builder.add(children[i]);
+                }
+            }
+            metrics = builder.add(parent).build();
+        }
+        return metrics;
+    }
+
+    @Override
+    public Metric getParentMetric() {
+        return parent;
+    }
+
+    public MetricLabels labels() {
+        return parentLabels;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric.bucket;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the number of series created by one or several buckets, so that a label fed with unbounded values (such as
+ * request ids) cannot exhaust the heap or the backend.
+ *
+ * <pre>
+ * CardinalityLimiter applicationLimit = new CardinalityLimiter(100000);
+ * MetricBucketImpl requests = new MetricBucketImpl("request", Metric.Type.COUNT, "path")
+ *         .withCardinalityLimit(1000)
+ *         .withCardinalityLimiter(applicationLimit);
+ * </pre>
+ */
+public class CardinalityLimiter {
+
+    private final int maxSeries;
+    private final AtomicInteger series = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    public CardinalityLimiter(int maxSeries) {
+        if (maxSeries < 0) {
+            throw new IllegalArgumentException("The maximum number of series cannot be negative: " + maxSeries);
+        }
+        this.maxSeries = maxSeries;
+    }
+
+    /**
+     * Reserves one series, if the limit is not reached yet.
+     *
+     * @return whether the series can be created
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = series.get();
+            if (current >= maxSeries) {
+                rejected.increment();
+                return false;
+            }
+            if (series.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Reserves one series even if the limit is reached, for a series which already holds values.
+     */
+    void acquire() {
+        series.incrementAndGet();
+    }
+
+    /**
+     * Releases a series reserved by {@link #tryAcquire()}, which was not created or was removed. The number of
+     * series never goes below zero.
+     */
+    public void release() {
+        while (true) {
+            int current = series.get();
+            if (current <= 0 || series.compareAndSet(current, current - 1)) {
+                return;
+            }
+        }
+    }
+
+    public int getMaxSeries() {
+        return maxSeries;
+    }
+
+    /**
+     * @return the number of series currently reserved
+     */
+    public int getSeries() {
+        return series.get();
+    }
+
+    /**
+     * @return the number of series rejected because the limit was reached
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+}
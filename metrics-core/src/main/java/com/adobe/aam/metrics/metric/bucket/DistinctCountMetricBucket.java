@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric.bucket;
+
+import com.adobe.aam.metrics.metric.DistinctCountMetric;
+import com.adobe.aam.metrics.metric.Metric;
+import com.adobe.aam.metrics.metric.MetricLabels;
+
+import java.util.List;
+
+/**
+ * A bucket of {@link DistinctCountMetric}s, where each label value gets its own sketch of the given precision.
+ *
+ * For example, users.distinct per region: getMetric("us-east").offer(userId). Use it instead of a bucket with one
+ * child per id, whose memory grows with the number of distinct values.
+ */
+public class DistinctCountMetricBucket extends MetricBucketImpl {
+
+    private final int precision;
+
+    public DistinctCountMetricBucket(String name, String postLabelName) {
+        this(name, postLabelName, DistinctCountMetric.DEFAULT_PRECISION);
+    }
+
+    /**
+     * @param precision the number of registers of each sketch, as a power of two (4 to 18)
+     */
+    public DistinctCountMetricBucket(String name, String postLabelName, int precision) {
+        super(name, Metric.Type.DISTINCT_COUNT, postLabelName);
+        this.precision = precision;
+    }
+
+    public DistinctCountMetricBucket(String name, List<String> postLabelNames, int precision) {
+        super(name, Metric.Type.DISTINCT_COUNT, postLabelNames);
+        this.precision = precision;
+    }
+
+    @Override
+    protected Metric newMetric(MetricLabels labels) {
+        return new DistinctCountMetric(labels, precision);
+    }
+
+    @Override
+    public DistinctCountMetric getMetric(Object child) {
+        return (DistinctCountMetric) super.getMetric(child);
+    }
+
+    @Override
+    public DistinctCountMetric getParentMetric() {
+        return (DistinctCountMetric) super.getParentMetric();
+    }
+}
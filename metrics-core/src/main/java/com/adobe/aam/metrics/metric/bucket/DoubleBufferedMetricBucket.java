@@ -0,0 +1,55 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric.bucket;
+
+import com.adobe.aam.metrics.metric.DoubleBufferedMetric;
+import com.adobe.aam.metrics.metric.Metric;
+import com.adobe.aam.metrics.metric.MetricLabels;
+
+import java.util.List;
+
+/**
+ * A bucket whose metrics are {@link DoubleBufferedMetric}s, so that their values are never split across intervals
+ * when they are reset while being tracked.
+ */
+public class DoubleBufferedMetricBucket extends MetricBucketImpl {
+
+    private final Metric.Type type;
+
+    public DoubleBufferedMetricBucket(String name, Metric.Type type) {
+        super(name, type);
+        this.type = type;
+    }
+
+    public DoubleBufferedMetricBucket(String name, Metric.Type type, String postLabelName) {
+        super(name, type, postLabelName);
+        this.type = type;
+    }
+
+    public DoubleBufferedMetricBucket(String name, Metric.Type type, String preLabelName, List<String> postLabelNames) {
+        super(name, type, preLabelName, postLabelNames);
+        this.type = type;
+    }
+
+    public DoubleBufferedMetricBucket(String name, Metric.Type type, List<String> postLabelNames) {
+        super(name, type, postLabelNames);
+        this.type = type;
+    }
+
+    @Override
+    protected Metric newMetric(MetricLabels labels) {
+        return DoubleBufferedMetric.newInstance(labels, type);
+    }
+}
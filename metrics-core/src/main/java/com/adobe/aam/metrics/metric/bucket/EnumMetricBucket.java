@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric.bucket;
+
+import com.adobe.aam.metrics.metric.Metric;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * A bucket with one child per constant of an enum, looked up by its ordinal.
+ *
+ * <pre>
+ * EnumMetricBucket&lt;Outcome&gt; requests = new EnumMetricBucket&lt;&gt;("request", Metric.Type.COUNT, Outcome.class);
+ * requests.getMetric(Outcome.SUCCEEDED).track(1);
+ * </pre>
+ */
+public class EnumMetricBucket<E extends Enum<E>> extends ArrayMetricBucket {
+
+    private final Class<E> enumClass;
+
+    public EnumMetricBucket(String name, Metric.Type type, Class<E> enumClass) {
+        this(name, type, null, enumClass);
+    }
+
+    public EnumMetricBucket(String name, Metric.Type type, String postLabelName, Class<E> enumClass) {
+        super(name, type, postLabelName, Arrays.stream(enumClass.getEnumConstants())
+                .map(Object::toString)
+                .collect(Collectors.toList()));
+        this.enumClass = enumClass;
+    }
+
+    public Metric getMetric(E child) {
+        return getChild(child.ordinal());
+    }
+
+    /**
+     * @param child a constant of the enum, or its name
+     * @throws IllegalArgumentException if the child is not a constant of the enum
+     */
+    @Override
+    public Metric getMetric(Object child) {
+        if (enumClass.isInstance(child)) {
+            return getChild(enumClass.cast(child).ordinal());
+        }
+
+        return getChild(Enum.valueOf(enumClass, child.toString()).ordinal());
+    }
+}
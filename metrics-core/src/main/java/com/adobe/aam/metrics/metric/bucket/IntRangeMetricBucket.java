@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric.bucket;
+
+import com.adobe.aam.metrics.metric.Metric;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A bucket with one child per integer of a bounded range, such as the HTTP status codes. The values out of the range
+ * are tracked by a single {@link MetricBucketImpl#OVERFLOW} child.
+ *
+ * <pre>
+ * IntRangeMetricBucket responses = new IntRangeMetricBucket("response", Metric.Type.COUNT, "status", 100, 599);
+ * responses.getMetric(response.getStatus()).track(1);
+ * </pre>
+ */
+public class IntRangeMetricBucket extends ArrayMetricBucket {
+
+    /**
+     * The maximum number of values of a range. Since all the children are created up front, the wider ranges should
+     * use a {@link MetricBucketImpl} instead.
+     */
+    public static final int MAX_RANGE = 1 << 16;
+
+    private final int min;
+    private final int max;
+
+    /**
+     * @param min the lowest value of the range, included
+     * @param max the highest value of the range, included
+     * @throws IllegalArgumentException if the range is empty or has more than {@link #MAX_RANGE} values
+     */
+    public IntRangeMetricBucket(String name, Metric.Type type, String postLabelName, int min, int max) {
+        super(name, type, postLabelName, labelValues(min, max));
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * @return the label values of the range, followed by the one of the overflow child
+     */
+    private static List<String> labelValues(int min, int max) {
+        if (min > max) {
+            throw new IllegalArgumentException("Invalid range of values: " + min + " to " + max);
+        }
+        if ((long) max - min >= MAX_RANGE) {
+            throw new IllegalArgumentException("The range " + min + " to " + max + " has more than " + MAX_RANGE
+                    + " values.");
+        }
+
+        return Stream.concat(IntStream.rangeClosed(min, max).mapToObj(String::valueOf),
+                Stream.of(MetricBucketImpl.OVERFLOW))
+                .collect(Collectors.toList());
+    }
+
+    public Metric getMetric(int child) {
+        return child < min || child > max
+                ? getOverflowMetric()
+                : getChild(child - min);
+    }
+
+    /**
+     * @param child a number, or its string
+     */
+    @Override
+    public Metric getMetric(Object child) {
+        if (child instanceof Integer || child instanceof Short || child instanceof Byte) {
+            return getMetric(((Number) child).intValue());
+        }
+        if (child instanceof Long) {
+            long value = (Long) child;
+            return value < min || value > max ? getOverflowMetric() : getChild((int) (value - min));
+        }
+
+        try {
+            return getMetric(Integer.parseInt(child.toString()));
+        } catch (NumberFormatException e) {
+            return getOverflowMetric();
+        }
+    }
+
+    /**
+     * @return the child which tracks the values out of the range
+     */
+    public Metric getOverflowMetric() {
+        return getChild(max - min + 1);
+    }
+}
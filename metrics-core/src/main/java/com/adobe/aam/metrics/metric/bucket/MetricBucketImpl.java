@@ -14,22 +14,57 @@
 package com.adobe.aam.metrics.metric.bucket;
 
 import com.adobe.aam.metrics.metric.ImmutableMetricLabels;
+import com.adobe.aam.metrics.metric.LabelDictionary;
 import com.adobe.aam.metrics.metric.Metric;
 import com.adobe.aam.metrics.metric.MetricLabels;
+import com.adobe.aam.metrics.metric.SeriesNameCache;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Maps;
 
+import java.lang.ref.WeakReference;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 public class MetricBucketImpl implements MetricBucket {
 
+    /**
+     * The label value of the child which gets the values of the rejected children, once the bucket is full.
+     */
+    public static final String OVERFLOW = "__overflow__";
+
+    private static final Object[] NO_VALUES = {};
+
     private final ConcurrentMap<MetricLabels, Metric> bucket = Maps.newConcurrentMap();
     private final Metric.Type type;
     private final MetricLabels parentLabels;
 
+    // Indexes of the children by their raw label values, so that looking up an existing child does not build labels.
+    private final IndexNode suffixIndex = new IndexNode();
+    private final IndexNode prefixIndex = new IndexNode();
+    private final IndexNode prefixSuffixIndex = new IndexNode();
+    private volatile Metric parent;
+
+    private volatile CardinalityLimiter limiter;
+    private volatile CardinalityLimiter sharedLimiter;
+    private volatile LabelDictionary dictionary = LabelDictionary.getDefault();
+    private volatile Metric overflow;
+    private final LongAdder rejected = new LongAdder();
+
+    // The children evicted by the expiry, until they are tracked again, or no longer referenced once a cycle found
+    // them still idle.
+    private final ConcurrentMap<MetricLabels, RetiredMetric> retired = Maps.newConcurrentMap();
+    private final Object expiryLock = new Object();
+    private volatile long[] cycleTimes;
+    private int cycle;
+
     public MetricBucketImpl(String name, Metric.Type type) {
         this.parentLabels = ImmutableMetricLabels
                 .builder()
@@ -66,57 +101,447 @@ public class MetricBucketImpl implements MetricBucket {
         this.type = type;
     }
 
+    /**
+     * Limits the number of children of this bucket. Once it is reached, the values of the new children are tracked by
+     * the {@link #OVERFLOW} child instead. The limit is only checked when a child is created, so it does not slow down
+     * the lookup of the existing children.
+     *
+     * @throws IllegalStateException if the bucket already has children, which the limit would not account for
+     */
+    public MetricBucketImpl withCardinalityLimit(int maxChildren) {
+        checkNoChildren();
+        this.limiter = new CardinalityLimiter(maxChildren);
+        return this;
+    }
+
+    /**
+     * Also limits the number of children by a limiter shared with other buckets, such as a limit for the whole
+     * application.
+     *
+     * @throws IllegalStateException if the bucket already has children, which the limiter would not account for
+     */
+    public MetricBucketImpl withCardinalityLimiter(CardinalityLimiter sharedLimiter) {
+        checkNoChildren();
+        this.sharedLimiter = sharedLimiter;
+        return this;
+    }
+
+    /**
+     * Interns the label values of the children in the given dictionary, instead of the one shared by all the buckets.
+     * A bucket with many distinct label values can use a dictionary of its own, so that it does not fill the shared
+     * one (which stops interning new strings once it is full).
+     */
+    public MetricBucketImpl withLabelDictionary(LabelDictionary dictionary) {
+        this.dictionary = Preconditions.checkNotNull(dictionary);
+        return this;
+    }
+
+    private void checkNoChildren() {
+        // The parent is the only series which may exist, since it is not counted in the limits.
+        MetricLabels parentKey = parentLabels.normalize();
+        if (!retired.isEmpty() || bucket.keySet().stream().anyMatch(labels -> !labels.equals(parentKey))) {
+            throw new IllegalStateException("The cardinality limits of the bucket " + parentLabels.metricName()
+                    + " must be set before its children are created.");
+        }
+    }
+
+    /**
+     * @return the number of lookups of new children which were routed to the {@link #OVERFLOW} child
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Evicts the children which were not tracked during the given number of cycles, so that the metrics which were
+     * only active once (eg. for a label value seen during a crawl) do not stay in memory and collected forever. Each
+     * call to {@link #getMetrics()}, as done by the MetricAgent, is a cycle.
+     *
+     * An evicted child is kept until the next cycle, and brought back if it was tracked in the meantime, through a
+     * handle kept by the caller such as a {@link #bind(Object)} handle, or by a track racing with the eviction. Past
+     * that cycle, it is only kept while the caller references it: it is still brought back if it is looked up again,
+     * or if it is tracked and its handle is still referenced at the next cycle. Counters start from zero again once
+     * a child is evicted and no longer referenced.
+     */
+    public MetricBucketImpl withExpiry(int idleCycles) {
+        if (idleCycles <= 0) {
+            throw new IllegalArgumentException("The number of idle cycles must be positive: " + idleCycles);
+        }
+
+        long[] times = new long[idleCycles];
+        Arrays.fill(times, Long.MIN_VALUE);
+        this.cycleTimes = times;
+        return this;
+    }
+
     private Metric safeGetMetric(MetricLabels labels) {
+        return safeGetMetric(labels, true);
+    }
+
+    /**
+     * @param limited whether the child counts in the cardinality limits, which is not the case of the parent and of
+     *                the overflow child
+     */
+    private Metric safeGetMetric(MetricLabels labels, boolean limited) {
         MetricLabels normalizedLabels = labels.normalize();
         Metric metric = bucket.get(normalizedLabels);
+        if (metric == null) {
+            metric = restore(normalizedLabels);
+        }
+
         if (metric == null) {
             // Metric was not yet created for this identifier.
-            Metric newMetric = Metric.newInstance(normalizedLabels, type);
-            metric = bucket.putIfAbsent(normalizedLabels, newMetric);
+            if (limited && !acquire()) {
+                rejected.increment();
+                return getOverflowMetric();
+            }
+
+            // The label values are interned once, when the child is created, so the children of all the buckets
+            // share them.
+            MetricLabels internedLabels = dictionary.intern(normalizedLabels);
+            Metric newMetric = newMetric(internedLabels);
+            metric = bucket.putIfAbsent(internedLabels, newMetric);
             if (metric == null) {
                 // If this is the lucky thread that managed to put the metric, then return it as is.
                 metric = newMetric;
+            } else if (limited) {
+                release();
             }
         }
 
         return metric;
     }
 
+    private boolean acquire() {
+        CardinalityLimiter limiter = this.limiter;
+        if (limiter != null && !limiter.tryAcquire()) {
+            return false;
+        }
+
+        CardinalityLimiter sharedLimiter = this.sharedLimiter;
+        if (sharedLimiter != null && !sharedLimiter.tryAcquire()) {
+            if (limiter != null) {
+                limiter.release();
+            }
+            return false;
+        }
+
+        return true;
+    }
+
+    private void forceAcquire() {
+        CardinalityLimiter limiter = this.limiter;
+        if (limiter != null) {
+            limiter.acquire();
+        }
+
+        CardinalityLimiter sharedLimiter = this.sharedLimiter;
+        if (sharedLimiter != null) {
+            sharedLimiter.acquire();
+        }
+    }
+
+    private void release() {
+        CardinalityLimiter limiter = this.limiter;
+        if (limiter != null) {
+            limiter.release();
+        }
+
+        CardinalityLimiter sharedLimiter = this.sharedLimiter;
+        if (sharedLimiter != null) {
+            sharedLimiter.release();
+        }
+    }
+
+    /**
+     * @return the child which tracks the values of the children rejected by the cardinality limits. It is not
+     * counted in the limits.
+     */
+    public Metric getOverflowMetric() {
+        Metric metric = overflow;
+        if (metric == null) {
+            List<String> postLabelValues = Collections.nCopies(Math.max(1, parentLabels.postLabelNames().size()),
+                    OVERFLOW);
+            metric = overflow = safeGetMetric(ImmutableMetricLabels.copyOf(parentLabels)
+                    .withPostLabelValues(postLabelValues), false);
+        }
+
+        return metric;
+    }
+
+    /**
+     * Creates the metric for the given labels, the first time it is accessed. Subclasses can override it to link the
+     * children to the parent metric, for instance.
+     */
+    protected Metric newMetric(MetricLabels labels) {
+        return Metric.newInstance(labels, type);
+    }
+
     @Override
     public Collection<Metric> getMetrics() {
+        if (cycleTimes != null) {
+            expire();
+        }
+
         return bucket.values();
     }
 
+    private void expire() {
+        synchronized (expiryLock) {
+            long now = Metric.getClock().time();
+            long[] times = cycleTimes;
+            int slot = cycle;
+            cycle = (cycle + 1) % times.length;
+            long idleSince = times[slot];
+            times[slot] = now;
+
+            // Bring back the evicted children which were tracked since, through a handle kept by the caller.
+            for (Map.Entry<MetricLabels, RetiredMetric> entry : retired.entrySet()) {
+                RetiredMetric retiredMetric = entry.getValue();
+                Metric metric = retiredMetric.getMetric();
+                if (metric == null) {
+                    retired.remove(entry.getKey(), retiredMetric);
+                } else if (metric.getLastTrackTime() >= retiredMetric.retiredAt) {
+                    restore(entry.getKey());
+                } else {
+                    // Still idle one cycle after its eviction, including the tracks which raced with it.
+                    retiredMetric.release();
+                }
+            }
+
+            if (idleSince == Long.MIN_VALUE) {
+                return;
+            }
+
+            MetricLabels normalizedParentLabels = parentLabels.normalize();
+            Set<Metric> evicted = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Map.Entry<MetricLabels, Metric> entry : bucket.entrySet()) {
+                Metric metric = entry.getValue();
+                if (metric.getLastTrackTime() >= idleSince || metric == overflow
+                        || entry.getKey().equals(normalizedParentLabels)) {
+                    continue;
+                }
+
+                // The child is retired before it is removed, so that a concurrent lookup finds it in either map.
+                RetiredMetric retiredMetric = new RetiredMetric(metric, now);
+                retired.put(entry.getKey(), retiredMetric);
+                if (bucket.remove(entry.getKey(), metric)) {
+                    release();
+                    evicted.add(metric);
+                    SeriesNameCache.invalidate(metric.getLabels());
+                } else {
+                    retired.remove(entry.getKey(), retiredMetric);
+                }
+            }
+
+            if (!evicted.isEmpty()) {
+                suffixIndex.removeAll(evicted);
+                prefixIndex.removeAll(evicted);
+                prefixSuffixIndex.removeAll(evicted);
+            }
+        }
+    }
+
+    /**
+     * Puts an evicted child back into the bucket. It may exceed the cardinality limits, since values may already
+     * have been tracked into it.
+     *
+     * @return the evicted child, or null if there is none for these labels
+     */
+    private Metric restore(MetricLabels labels) {
+        RetiredMetric retiredMetric = retired.get(labels);
+        Metric metric = retiredMetric == null ? null : retiredMetric.getMetric();
+        if (metric == null || !retired.remove(labels, retiredMetric)) {
+            return null;
+        }
+
+        Metric existing = bucket.putIfAbsent(labels, metric);
+        if (existing != null) {
+            return existing;
+        }
+
+        forceAcquire();
+        return metric;
+    }
+
     @Override
     public Metric getMetric(Object suffix) {
-        MetricLabels childLabels = ImmutableMetricLabels.copyOf(parentLabels)
-                .withPostLabelValues(suffix.toString());
+        Metric metric = find(suffixIndex, suffix, NO_VALUES);
+        if (metric == null) {
+            MetricLabels childLabels = ImmutableMetricLabels.copyOf(parentLabels)
+                    .withPostLabelValues(suffix.toString());
+            metric = index(safeGetMetric(childLabels), suffixIndex, suffix, NO_VALUES);
+        }
 
-        return safeGetMetric(childLabels);
+        return metric;
     }
 
     public Metric getMetricWithPrefix(Object prefix) {
-        MetricLabels childLabels = ImmutableMetricLabels.copyOf(parentLabels)
-                .withPreLabelValue(prefix.toString());
+        Metric metric = find(prefixIndex, prefix, NO_VALUES);
+        if (metric == null) {
+            MetricLabels childLabels = ImmutableMetricLabels.copyOf(parentLabels)
+                    .withPreLabelValue(prefix.toString());
+            metric = index(safeGetMetric(childLabels), prefixIndex, prefix, NO_VALUES);
+        }
 
-        return safeGetMetric(childLabels);
+        return metric;
     }
 
     public Metric getMetric(Object prefix, Object... suffixes) {
-        List<String> postLabelValues = Arrays.stream(suffixes).map(Object::toString)
-                .collect(Collectors.toList());
-        MetricLabels childLabels = ImmutableMetricLabels.copyOf(parentLabels)
-                .withPreLabelValue(prefix.toString())
-                .withPostLabelValues(postLabelValues);
-        return safeGetMetric(childLabels);
+        Metric metric = find(prefixSuffixIndex, prefix, suffixes);
+        if (metric == null) {
+            List<String> postLabelValues = Arrays.stream(suffixes).map(Object::toString)
+                    .collect(Collectors.toList());
+            MetricLabels childLabels = ImmutableMetricLabels.copyOf(parentLabels)
+                    .withPreLabelValue(prefix.toString())
+                    .withPostLabelValues(postLabelValues);
+            metric = index(safeGetMetric(childLabels), prefixSuffixIndex, prefix, suffixes);
+        }
+
+        return metric;
+    }
+
+    /**
+     * @return the indexed child for the given raw label values, or null if it was not looked up yet
+     */
+    private static Metric find(IndexNode index, Object first, Object[] rest) {
+        IndexNode node = index.find(first);
+        for (int i = 0; node != null && i < rest.length; i++) {
+            node = node.find(rest[i]);
+        }
+
+        return node == null ? null : node.metric;
+    }
+
+    /**
+     * Indexes the child for the given raw label values. The rejected values are not indexed, so that they do not grow
+     * the index past the cardinality limits.
+     */
+    private Metric index(Metric metric, IndexNode index, Object first, Object[] rest) {
+        if (metric == overflow) {
+            return metric;
+        }
+
+        IndexNode node = index.child(first);
+        for (Object value : rest) {
+            node = node.child(value);
+        }
+        node.metric = metric;
+        return metric;
+    }
+
+    /**
+     * Resolves a child once, so that it can be kept and tracked without any lookup.
+     *
+     * <pre>
+     * private final Metric succeeded = requests.bind("succeeded");
+     * </pre>
+     *
+     * @return the same metric as {@link #getMetric(Object)}, which stays in the bucket
+     */
+    public Metric bind(Object suffix) {
+        return getMetric(suffix);
+    }
+
+    /**
+     * @return the same metric as {@link #getMetric(Object, Object...)}, to be kept and tracked without any lookup
+     */
+    public Metric bind(Object prefix, Object... suffixes) {
+        return getMetric(prefix, suffixes);
     }
 
     @Override
     public Metric getParentMetric() {
-        return safeGetMetric(parentLabels);
+        Metric metric = parent;
+        if (metric == null) {
+            metric = parent = safeGetMetric(parentLabels, false);
+        }
+
+        return metric;
     }
 
     public MetricLabels labels() {
         return parentLabels;
     }
+
+    /**
+     * A level of the raw label value index. Each label value leads to the next level, and the level reached by the
+     * values of a child holds that child.
+     */
+    private static final class IndexNode {
+
+        private final ConcurrentMap<Object, IndexNode> children = Maps.newConcurrentMap();
+        private volatile Metric metric;
+
+        /**
+         * Removes the given children from this level and the levels below.
+         *
+         * @return whether this level is now empty
+         */
+        boolean removeAll(Set<Metric> metrics) {
+            children.values().removeIf(child -> {
+                if (metrics.contains(child.metric)) {
+                    child.metric = null;
+                }
+                return child.removeAll(metrics);
+            });
+
+            return metric == null && children.isEmpty();
+        }
+
+        IndexNode find(Object value) {
+            return children.get(indexKey(value));
+        }
+
+        IndexNode child(Object value) {
+            Object key = indexKey(value);
+            IndexNode child = children.get(key);
+            if (child == null) {
+                IndexNode newChild = new IndexNode();
+                child = children.putIfAbsent(key, newChild);
+                if (child == null) {
+                    child = newChild;
+                }
+            }
+
+            return child;
+        }
+
+        /**
+         * Immutable values with a cheap hash are used as is. Any other value is indexed by its string, as in the labels,
+         * since it may be mutable or only compared by identity.
+         */
+        private static Object indexKey(Object value) {
+            if (value instanceof String || value instanceof Integer || value instanceof Long || value instanceof Enum
+                    || value instanceof Character || value instanceof Boolean) {
+                return value;
+            }
+
+            return value.toString();
+        }
+    }
+
+    /**
+     * An evicted child, held strongly until a cycle finds it still idle, and then weakly.
+     */
+    private static final class RetiredMetric extends WeakReference<Metric> {
+
+        private final long retiredAt;
+        private volatile Metric held;
+
+        RetiredMetric(Metric metric, long retiredAt) {
+            super(metric);
+            this.retiredAt = retiredAt;
+            this.held = metric;
+        }
+
+        Metric getMetric() {
+            Metric metric = held;
+            return metric != null ? metric : get();
+        }
+
+        void release() {
+            held = null;
+        }
+    }
 }
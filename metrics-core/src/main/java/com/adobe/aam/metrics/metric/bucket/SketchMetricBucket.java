@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.metric.bucket;
+
+import com.adobe.aam.metrics.metric.Metric;
+import com.adobe.aam.metrics.metric.MetricLabels;
+import com.adobe.aam.metrics.metric.SketchMetric;
+import com.adobe.aam.metrics.metric.histogram.QuantileSketch;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A bucket of {@link SketchMetric}s, whose parent reports the values tracked by all of its children. Values are only
+ * tracked once, in the child, and the parent merges the sketches of its children when they are collected.
+ *
+ * For example, tracking a latency in requests.succeeded and requests.failed makes the requests parent report the
+ * percentiles of all requests.
+ */
+public class SketchMetricBucket extends MetricBucketImpl {
+
+    private final double relativeAccuracy;
+
+    public SketchMetricBucket(String name) {
+        this(name, QuantileSketch.DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    /**
+     * @param relativeAccuracy the maximum relative error of the reported percentiles (eg. 0.01 for 1%)
+     */
+    public SketchMetricBucket(String name, double relativeAccuracy) {
+        super(name, Metric.Type.SKETCH);
+        this.relativeAccuracy = relativeAccuracy;
+    }
+
+    public SketchMetricBucket(String name, String postLabelName) {
+        super(name, Metric.Type.SKETCH, postLabelName);
+        this.relativeAccuracy = QuantileSketch.DEFAULT_RELATIVE_ACCURACY;
+    }
+
+    public SketchMetricBucket(String name, List<String> postLabelNames) {
+        super(name, Metric.Type.SKETCH, postLabelNames);
+        this.relativeAccuracy = QuantileSketch.DEFAULT_RELATIVE_ACCURACY;
+    }
+
+    public SketchMetricBucket(String name, String preLabelName, List<String> postLabelNames) {
+        super(name, Metric.Type.SKETCH, preLabelName, postLabelNames);
+        this.relativeAccuracy = QuantileSketch.DEFAULT_RELATIVE_ACCURACY;
+    }
+
+    @Override
+    protected Metric newMetric(MetricLabels labels) {
+        if (labels.equals(labels().normalize())) {
+            return new SketchMetric(labels, relativeAccuracy);
+        }
+
+        return new SketchMetric(labels, (SketchMetric) getParentMetric());
+    }
+
+    /**
+     * @return all the metrics in the bucket, with the parent last. The MetricAgent collects the metrics in this
+     * order, so the parent reports the values its children tracked during the same interval. If a client collects
+     * the parent first, the values of its children are reported by the parent one interval later.
+     */
+    @Override
+    public Collection<Metric> getMetrics() {
+        Metric parent = getParentMetric();
+        List<Metric> metrics = super.getMetrics().stream()
+                .filter(metric -> metric != parent)
+                .collect(Collectors.toList());
+        metrics.add(parent);
+        return metrics;
+    }
+}
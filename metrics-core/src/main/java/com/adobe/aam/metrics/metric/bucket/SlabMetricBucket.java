@@ -0,0 +1,460 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric.bucket;
+
+import com.adobe.aam.metrics.core.publish.MetricSnapshot;
+import com.adobe.aam.metrics.metric.ImmutableMetricLabels;
+import com.adobe.aam.metrics.metric.LabelDictionary;
+import com.adobe.aam.metrics.metric.Metric;
+import com.adobe.aam.metrics.metric.MetricLabels;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bucket for millions of children, which keeps their values in a few large primitive arrays instead of one object
+ * graph per child.
+ *
+ * Each label value gets an integer series id, from a dictionary of the label values: an array of the label values by
+ * id, indexed by an open addressing table of ids. The values of a series are a few slots of a slab, an AtomicLongArray
+ * holding the series of 16384 ids. Since the slabs and the index hold no references, the garbage collector does not
+ * need to trace them, and a series costs about its label value, its reference, 8 bytes of index and 16 to 40 bytes of
+ * slots, instead of a metric, its labels, its adders and its map entry.
+ *
+ * <pre>
+ * SlabMetricBucket requests = new SlabMetricBucket("request", Metric.Type.COUNT, "user");
+ * int series = requests.seriesId(userId);
+ * requests.trackSeries(series, 1);
+ * </pre>
+ *
+ * The slots of a series are not padded, so a single very hot series is better kept in a {@link MetricBucketImpl}.
+ * Series ids are never reused: label values are expected to be bounded, if numerous. The MetricAgent writes the series
+ * straight into its snapshot with {@link #collect(MetricSnapshot.Builder)}, which only builds the labels of each
+ * series for the snapshot. {@link #getMetric(Object)} and {@link #getMetrics()} return short-lived views of the
+ * series, for the other users of {@link MetricBucket}; they are not kept by the bucket.
+ *
+ * Supports COUNT, AVG, MIN and MAX metrics. The sum and count of an AVG series are updated separately, so an average
+ * collected while it is updated may be off by a value.
+ */
+public class SlabMetricBucket implements MetricBucket {
+
+    private static final int SLAB_BITS = 14;
+    private static final int SLAB_SIZE = 1 << SLAB_BITS;
+    private static final int SLAB_MASK = SLAB_SIZE - 1;
+
+    // The slots of each series: the last track time, then the values which depend on the type. A COUNT series also
+    // keeps the two values it had when it was last collected, and a MIN or MAX series only has a first value.
+    private static final int TIME = 0;
+    private static final int FIRST = 1;
+    private static final int SECOND = 2;
+    private static final int REPORTED_FIRST = 3;
+    private static final int REPORTED_SECOND = 4;
+
+    // The index is kept at most half full, and holds at most 2^30 slots.
+    private static final int MAX_SERIES = 1 << 29;
+
+    private static final long MIN_RESET_BITS = Double.doubleToRawLongBits(Metric.POSITIVE_INFINITY);
+    private static final long MAX_RESET_BITS = Double.doubleToRawLongBits(Metric.NEGATIVE_INFINITY);
+    private static final long ZERO_BITS = Double.doubleToRawLongBits(0);
+
+    private final Metric.Type type;
+    private final int slots;
+    private final ImmutableMetricLabels parentLabels;
+    private final Metric parent;
+    // Null when the label values are not interned.
+    private final LabelDictionary dictionary;
+    // Held while the series are collected, since it updates the reported values of the COUNT series.
+    private final Object collectLock = new Object();
+
+    // The series id plus one of each label value, at the slot of its hash code or one of the next ones; 0 if free.
+    private volatile AtomicIntegerArray index = new AtomicIntegerArray(16);
+    private volatile String[] labelValues = new String[0];
+    private volatile AtomicLongArray[] slabs = new AtomicLongArray[0];
+    private volatile int size;
+
+    /**
+     * Creates a bucket which does not intern its label values in the dictionary shared by the other buckets, since
+     * millions of values would fill it. Each label value is still kept once by the bucket.
+     */
+    public SlabMetricBucket(String name, Metric.Type type, String postLabelName) {
+        this(name, type, postLabelName, null);
+    }
+
+    /**
+     * @param dictionary the dictionary in which the label values are interned, eg. to share them with the buckets
+     *                   which use the same dictionary
+     */
+    public SlabMetricBucket(String name, Metric.Type type, String postLabelName, LabelDictionary dictionary) {
+        if (type != Metric.Type.COUNT && type != Metric.Type.AVG && type != Metric.Type.MIN
+                && type != Metric.Type.MAX) {
+            throw new IllegalArgumentException("Only COUNT, AVG, MIN and MAX metrics can be kept in slabs, not "
+                    + type);
+        }
+
+        this.type = type;
+        this.slots = type == Metric.Type.COUNT ? 5 : type == Metric.Type.AVG ? 3 : 2;
+        this.parentLabels = ImmutableMetricLabels
+                .builder()
+                .metricName(name)
+                .addPostLabelNames(postLabelName)
+                .build();
+        this.parent = Metric.newInstance(parentLabels, type);
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * @return the series id of the given label value, which can be kept to track values without any lookup
+     */
+    public int seriesId(Object child) {
+        String value = child.toString();
+        int id = find(value);
+        return id >= 0 ? id : newSeries(value);
+    }
+
+    private int find(String value) {
+        AtomicIntegerArray index = this.index;
+        int mask = index.length() - 1;
+        for (int slot = slot(value, mask); ; slot = (slot + 1) & mask) {
+            int entry = index.get(slot);
+            if (entry == 0) {
+                return -1;
+            }
+            // Reading the entry made its label value visible.
+            if (labelValues[entry - 1].equals(value)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private synchronized int newSeries(String value) {
+        int id = find(value);
+        if (id >= 0) {
+            return id;
+        }
+
+        int newId = size;
+        if (newId == MAX_SERIES) {
+            throw new IllegalStateException("The bucket " + parentLabels.metricName() + " is full.");
+        }
+
+        int slab = newId >>> SLAB_BITS;
+        if (slab == slabs.length) {
+            AtomicLongArray[] newSlabs = Arrays.copyOf(slabs, slab + 1);
+            newSlabs[slab] = newSlab();
+            slabs = newSlabs;
+            labelValues = Arrays.copyOf(labelValues, (slab + 1) * SLAB_SIZE);
+        }
+
+        labelValues[newId] = dictionary != null ? dictionary.intern(value) : value;
+        size = newId + 1;
+        if (newId >= index.length() / 2) {
+            AtomicIntegerArray newIndex = new AtomicIntegerArray(index.length() * 2);
+            for (int i = 0; i < newId; i++) {
+                insert(newIndex, i);
+            }
+            // The readers which still hold the former index fall back to this method if they miss a new series.
+            index = newIndex;
+        }
+        // Publishing the id also publishes the slab and the label value.
+        insert(index, newId);
+        return newId;
+    }
+
+    private void insert(AtomicIntegerArray index, int id) {
+        int mask = index.length() - 1;
+        int slot = slot(labelValues[id], mask);
+        while (index.get(slot) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index.set(slot, id + 1);
+    }
+
+    private static int slot(String value, int mask) {
+        int h = value.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private AtomicLongArray newSlab() {
+        AtomicLongArray slab = new AtomicLongArray(SLAB_SIZE * slots);
+        for (int i = 0; i < SLAB_SIZE; i++) {
+            reset(slab, i * slots);
+        }
+        return slab;
+    }
+
+    /**
+     * Tracks a value into the series with the given label value.
+     */
+    public void track(Object child, double value) {
+        trackSeries(seriesId(child), value);
+    }
+
+    /**
+     * Tracks a value into the series with the given id, as returned by {@link #seriesId(Object)}.
+     */
+    public void trackSeries(int seriesId, double value) {
+        trackSeries(seriesId, value, Metric.getClock().time());
+    }
+
+    private void trackSeries(int seriesId, double value, long time) {
+        AtomicLongArray slab = slabs[seriesId >>> SLAB_BITS];
+        int base = (seriesId & SLAB_MASK) * slots;
+        slab.lazySet(base + TIME, time);
+
+        switch (type) {
+            case COUNT:
+                long longValue = (long) value;
+                if (longValue == value && longValue != Long.MAX_VALUE && longValue != Long.MIN_VALUE) {
+                    slab.getAndAdd(base + FIRST, longValue);
+                } else {
+                    addDouble(slab, base + SECOND, value);
+                }
+                break;
+            case AVG:
+                addDouble(slab, base + FIRST, value);
+                slab.getAndIncrement(base + SECOND);
+                break;
+            case MIN:
+                while (true) {
+                    long currentBits = slab.get(base + FIRST);
+                    if (!(value < Double.longBitsToDouble(currentBits))
+                            || slab.compareAndSet(base + FIRST, currentBits, Double.doubleToRawLongBits(value))) {
+                        return;
+                    }
+                }
+            default:
+                while (true) {
+                    long currentBits = slab.get(base + FIRST);
+                    if (!(value > Double.longBitsToDouble(currentBits))
+                            || slab.compareAndSet(base + FIRST, currentBits, Double.doubleToRawLongBits(value))) {
+                        return;
+                    }
+                }
+        }
+    }
+
+    private static void addDouble(AtomicLongArray slab, int slot, double value) {
+        while (true) {
+            long currentBits = slab.get(slot);
+            long newBits = Double.doubleToRawLongBits(Double.longBitsToDouble(currentBits) + value);
+            if (slab.compareAndSet(slot, currentBits, newBits)) {
+                return;
+            }
+        }
+    }
+
+    private double get(int seriesId, boolean reset) {
+        AtomicLongArray slab = slabs[seriesId >>> SLAB_BITS];
+        int base = (seriesId & SLAB_MASK) * slots;
+
+        switch (type) {
+            case COUNT:
+                long whole = reset ? slab.getAndSet(base + FIRST, 0) : slab.get(base + FIRST);
+                long fractions = reset ? slab.getAndSet(base + SECOND, ZERO_BITS) : slab.get(base + SECOND);
+                if (reset) {
+                    // The next collection reports what is counted from now on.
+                    slab.set(base + REPORTED_FIRST, 0);
+                    slab.set(base + REPORTED_SECOND, ZERO_BITS);
+                }
+                return whole + Double.longBitsToDouble(fractions);
+            case AVG:
+                long sum = reset ? slab.getAndSet(base + FIRST, ZERO_BITS) : slab.get(base + FIRST);
+                long count = reset ? slab.getAndSet(base + SECOND, 0) : slab.get(base + SECOND);
+                return count == 0 ? 0 : Double.longBitsToDouble(sum) / count;
+            default:
+                long resetBits = type == Metric.Type.MIN ? MIN_RESET_BITS : MAX_RESET_BITS;
+                long bits = reset ? slab.getAndSet(base + FIRST, resetBits) : slab.get(base + FIRST);
+                return bits == resetBits ? 0 : Double.longBitsToDouble(bits);
+        }
+    }
+
+    private void reset(AtomicLongArray slab, int base) {
+        switch (type) {
+            case MIN:
+                slab.set(base + FIRST, MIN_RESET_BITS);
+                break;
+            case MAX:
+                slab.set(base + FIRST, MAX_RESET_BITS);
+                break;
+            default:
+                slab.set(base + FIRST, type == Metric.Type.AVG ? ZERO_BITS : 0);
+                slab.set(base + SECOND, type == Metric.Type.AVG ? 0 : ZERO_BITS);
+        }
+    }
+
+    private long getLastTrackTime(int seriesId) {
+        return slabs[seriesId >>> SLAB_BITS].get((seriesId & SLAB_MASK) * slots + TIME);
+    }
+
+    private MetricLabels labels(int seriesId) {
+        return parentLabels.withPostLabelValues(labelValues[seriesId]);
+    }
+
+    /**
+     * Adds every series to the snapshot of the MetricAgent, straight from the slabs, but not the parent. The AVG, MIN
+     * and MAX series are reset, like the metrics collected by the agent, while the COUNT series are added with their
+     * increase since the previous collection.
+     */
+    public void collect(MetricSnapshot.Builder snapshot) {
+        synchronized (collectLock) {
+            int count = size;
+            AtomicLongArray[] slabs = this.slabs;
+            for (int id = 0; id < count; id++) {
+                long time = getLastTrackTime(id);
+                if (type != Metric.Type.COUNT) {
+                    snapshot.add(labels(id), type, get(id, true), time);
+                    continue;
+                }
+
+                AtomicLongArray slab = slabs[id >>> SLAB_BITS];
+                int base = (id & SLAB_MASK) * slots;
+                long whole = slab.get(base + FIRST);
+                double fractions = Double.longBitsToDouble(slab.get(base + SECOND));
+                // Computed on longs, so that large counts are exact.
+                double increment = (whole - slab.get(base + REPORTED_FIRST))
+                        + (fractions - Double.longBitsToDouble(slab.get(base + REPORTED_SECOND)));
+                slab.set(base + REPORTED_FIRST, whole);
+                slab.set(base + REPORTED_SECOND, Double.doubleToRawLongBits(fractions));
+                snapshot.addCounter(labels(id), whole + fractions, increment, time);
+            }
+        }
+    }
+
+    /**
+     * @return the number of series, not including the parent
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return a view of every series, followed by the parent
+     */
+    @Override
+    public Collection<Metric> getMetrics() {
+        int count = size;
+        return new AbstractCollection<Metric>() {
+            @Override
+            public Iterator<Metric> iterator() {
+                return new Iterator<Metric>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next <= count;
+                    }
+
+                    @Override
+                    public Metric next() {
+                        if (next > count) {
+                            throw new NoSuchElementException();
+                        }
+                        int id = next++;
+                        return id == count ? parent : new Series(id);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return count + 1;
+            }
+        };
+    }
+
+    /**
+     * @return a view of the series with the given label value
+     */
+    @Override
+    public Metric getMetric(Object child) {
+        return new Series(seriesId(child));
+    }
+
+    @Override
+    public Metric getParentMetric() {
+        return parent;
+    }
+
+    public MetricLabels labels() {
+        return parentLabels;
+    }
+
+    /**
+     * A view of a series, with its labels. Views of the same series are equal.
+     */
+    private final class Series extends Metric {
+
+        private final int id;
+
+        Series(int id) {
+            super(labels(id));
+            this.id = id;
+        }
+
+        @Override
+        public Type getType() {
+            return type;
+        }
+
+        @Override
+        public void track(double value) {
+            SlabMetricBucket.this.trackSeries(id, value);
+        }
+
+        @Override
+        public void track(double value, long time) {
+            SlabMetricBucket.this.trackSeries(id, value, time);
+        }
+
+        @Override
+        protected void doTrack(double value) {
+            SlabMetricBucket.this.trackSeries(id, value);
+        }
+
+        @Override
+        public double doGetAndReset() {
+            return SlabMetricBucket.this.get(id, true);
+        }
+
+        @Override
+        public double get() {
+            return SlabMetricBucket.this.get(id, false);
+        }
+
+        @Override
+        public long getLastTrackTime() {
+            return SlabMetricBucket.this.getLastTrackTime(id);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Series && ((Series) other).id == id && ((Series) other).bucket() == bucket();
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(bucket()) * 31 + id;
+        }
+
+        private SlabMetricBucket bucket() {
+            return SlabMetricBucket.this;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric.bucket;
+
+import com.adobe.aam.metrics.metric.ImmutableMetricLabels;
+import com.adobe.aam.metrics.metric.LongCounterMetric;
+import com.adobe.aam.metrics.metric.Metric;
+import com.adobe.aam.metrics.metric.MetricLabels;
+import com.adobe.aam.metrics.metric.SeriesNameCache;
+import com.google.common.collect.Maps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bucket of COUNT metrics which only keeps a child for the K most frequent label values, and folds all the
+ * others into an "other" child, so its memory is bounded whatever the number of distinct label values.
+ *
+ * The heavy hitters are tracked with the filtered Space-Saving algorithm. Each child is ranked by how many times it
+ * was accessed through {@link #getMetric(Object)}, which is its count when the metric is incremented by one. A label
+ * value which is not monitored is counted in a small array of hashed counters, and only replaces the least frequent
+ * child once its counter exceeds the rank of that child; until then, {@link #getMetric(Object)} returns the "other"
+ * child. An evicted child is no longer reported, and only the updates made after its eviction go to "other": its
+ * count so far was already published as its own cumulative series, so moving it to "other" would report it twice.
+ *
+ * A child created after an eviction may have been accessed before, while its accesses were counted in "other". Its
+ * possible undercount is reported by {@link Entry#getError()}: its true count is between its value and its value
+ * plus its error.
+ *
+ * Accessing a monitored label value only takes a concurrent map lookup and a striped increment. Unmonitored values
+ * take an atomic increment, and a lock only when they are admitted. A caller which still holds an evicted child
+ * keeps counting into "other"; only an update racing with the eviction itself may land in the evicted child, and is
+ * then not reported.
+ */
+public class TopKMetricBucket implements MetricBucket {
+
+    public static final String OTHER = "other";
+
+    private final int capacity;
+    private final MetricLabels parentLabels;
+    private final ConcurrentMap<String, Entry> entries = Maps.newConcurrentMap();
+    private final LongCounterMetric parent;
+    private final LongCounterMetric other;
+    private final AtomicLongArray filter;
+    private final int filterMask;
+    private volatile long minRank;
+
+    /**
+     * @param capacity the maximum number of label values which get their own child (K)
+     */
+    public TopKMetricBucket(String name, String postLabelName, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+        }
+
+        this.capacity = capacity;
+        this.parentLabels = ImmutableMetricLabels
+                .builder()
+                .metricName(name)
+                .addPostLabelNames(postLabelName)
+                .build();
+        this.parent = new LongCounterMetric(parentLabels);
+        this.other = new LongCounterMetric(childLabels(OTHER));
+
+        int filterSize = Math.max(64, Integer.highestOneBit(capacity * 8 - 1) << 1);
+        this.filter = new AtomicLongArray(filterSize);
+        this.filterMask = filterSize - 1;
+    }
+
+    /**
+     * @return the monitored children, from the most to the least frequent, followed by the "other" child and the
+     * parent
+     */
+    @Override
+    public Collection<Metric> getMetrics() {
+        List<Entry> top = new ArrayList<>(entries.values());
+        top.sort(Comparator.comparingLong(Entry::getRank).reversed());
+
+        List<Metric> metrics = new ArrayList<>(top.size() + 2);
+        metrics.addAll(top);
+        metrics.add(other);
+        metrics.add(parent);
+        return metrics;
+    }
+
+    /**
+     * @return the child of the given label value if it is among the heavy hitters, or else the "other" child
+     */
+    @Override
+    public Metric getMetric(Object child) {
+        String value = child.toString();
+        Entry entry = entries.get(value);
+        if (entry != null) {
+            entry.hits.increment();
+            return entry;
+        }
+
+        return OTHER.equals(value) ? other : admit(value);
+    }
+
+    @Override
+    public Metric getParentMetric() {
+        return parent;
+    }
+
+    public MetricLabels labels() {
+        return parentLabels;
+    }
+
+    private Metric admit(String value) {
+        int slot = slot(value);
+        long filterHits = filter.incrementAndGet(slot);
+        if (entries.size() >= capacity && filterHits <= minRank) {
+            return other;
+        }
+
+        synchronized (this) {
+            Entry entry = entries.get(value);
+            if (entry != null) {
+                entry.hits.increment();
+                return entry;
+            }
+
+            filterHits = filter.get(slot);
+            if (entries.size() >= capacity) {
+                Entry min = findMin();
+                if (filterHits <= min.getRank()) {
+                    return other;
+                }
+                evict(min);
+            }
+
+            // The accesses to this value may have been counted in "other" so far.
+            entry = new Entry(childLabels(value), other, filterHits - 1);
+            filter.set(slot, 0);
+            entries.put(value, entry);
+            if (entries.size() >= capacity) {
+                minRank = findMin().getRank();
+            }
+            return entry;
+        }
+    }
+
+    private void evict(Entry min) {
+        String value = min.getLabels().postLabelValues().get(0);
+        entries.remove(value);
+        min.evicted = true;
+        SeriesNameCache.invalidate(min.getLabels());
+
+        int slot = slot(value);
+        filter.set(slot, Math.max(filter.get(slot), min.getRank()));
+    }
+
+    private Entry findMin() {
+        Entry min = null;
+        for (Entry entry : entries.values()) {
+            if (min == null || entry.getRank() < min.getRank()) {
+                min = entry;
+            }
+        }
+        return min;
+    }
+
+    private MetricLabels childLabels(String value) {
+        return ImmutableMetricLabels.copyOf(parentLabels).withPostLabelValues(value);
+    }
+
+    private int slot(String value) {
+        long h = value.hashCode() * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & filterMask;
+    }
+
+    /**
+     * The child of a label value among the heavy hitters.
+     */
+    public static final class Entry extends LongCounterMetric {
+
+        private final LongAdder hits = new LongAdder();
+        private final LongCounterMetric other;
+        private final long error;
+        private volatile boolean evicted;
+
+        private Entry(MetricLabels labels, LongCounterMetric other, long error) {
+            super(labels);
+            this.other = other;
+            this.error = error;
+            this.hits.increment();
+        }
+
+        @Override
+        public void doTrack(double value) {
+            if (evicted) {
+                other.track(value);
+            } else {
+                super.doTrack(value);
+            }
+        }
+
+        @Override
+        public void add(long delta) {
+            if (evicted) {
+                other.add(delta);
+            } else {
+                super.add(delta);
+            }
+        }
+
+        /**
+         * @return how many accesses to this label value may have been counted in "other" before it got its own child
+         */
+        public long getError() {
+            return error;
+        }
+
+        /**
+         * @return the estimated number of accesses to this label value, which is an upper bound
+         */
+        public long getRank() {
+            return hits.sum() + error;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.metric.histogram;
+
+import com.adobe.aam.metrics.metric.LongCounterMetric;
+import com.adobe.aam.metrics.metric.Metric;
+import com.adobe.aam.metrics.metric.MetricLabels;
+import com.adobe.aam.metrics.metric.SimpleMetric;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * An immutable view of the values recorded by a histogram during one interval.
+ */
+public class HistogramSnapshot {
+
+    /**
+     * The series reported for a histogram, in addition to the count.
+     */
+    public static final List<Metric.Type> TYPES = ImmutableList.of(
+            Metric.Type.MIN,
+            Metric.Type.MAX,
+            Metric.Type.AVG,
+            Metric.Type.PERCENTILE_50,
+            Metric.Type.PERCENTILE_75,
+            Metric.Type.PERCENTILE_95,
+            Metric.Type.PERCENTILE_98,
+            Metric.Type.PERCENTILE_99,
+            Metric.Type.PERCENTILE_999
+    );
+
+    private final double[] values;
+    private final long[] counts;
+    private final long count;
+    private final double sum;
+    private final double min;
+    private final double max;
+
+    /**
+     * @param values the distinct values, in ascending order
+     * @param counts how many times each value was recorded
+     */
+    public HistogramSnapshot(double[] values, long[] counts, double sum, double min, double max) {
+        this.values = values;
+        this.counts = counts;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+
+        long count = 0;
+        for (long valueCount : counts) {
+            count += valueCount;
+        }
+        this.count = count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * @return the exact minimum, or 0 if nothing was recorded
+     */
+    public double getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * @return the exact maximum, or 0 if nothing was recorded
+     */
+    public double getMax() {
+        return count == 0 ? 0 : max;
+    }
+
+    /**
+     * @return the average, or 0 if nothing was recorded
+     */
+    public double getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * @param quantile a value between 0 and 1 (eg. 0.99 for the 99th percentile)
+     * @return the value below which the given fraction of the recorded values fall, or 0 if nothing was recorded
+     */
+    public double getValue(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < values.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                // The bucket value is an approximation, which must not fall outside of the exact range.
+                return Math.min(max, Math.max(min, values[i]));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return the value of the given series: MIN, MAX, AVG, COUNT or one of the percentiles
+     */
+    public double get(Metric.Type type) {
+        switch (type) {
+            case COUNT:
+                return getCount();
+            case MIN:
+                return getMin();
+            case MAX:
+                return getMax();
+            case AVG:
+                return getMean();
+            case PERCENTILE_50:
+                return getValue(0.5);
+            case PERCENTILE_75:
+                return getValue(0.75);
+            case PERCENTILE_95:
+                return getValue(0.95);
+            case PERCENTILE_98:
+                return getValue(0.98);
+            case PERCENTILE_99:
+                return getValue(0.99);
+            case PERCENTILE_999:
+                return getValue(0.999);
+            default:
+                throw new IllegalArgumentException("A histogram does not report " + type + " values.");
+        }
+    }
+
+    /**
+     * Adds the count of this interval to the given cumulative counter, since a COUNT series is reported as a
+     * cumulative value (by the same metric on each cycle).
+     *
+     * @param cumulativeCount the counter of the values tracked by the histogram since it was created
+     * @return the count, min, max, avg and percentile series for the given labels
+     */
+    public List<Metric> toMetrics(MetricLabels labels, long lastTrack, LongCounterMetric cumulativeCount) {
+        if (count > 0) {
+            cumulativeCount.track(count, lastTrack);
+        }
+
+        ImmutableList.Builder<Metric> metrics = ImmutableList.builder();
+        metrics.add(cumulativeCount);
+        for (Metric.Type type : TYPES) {
+            metrics.add(new SimpleMetric(labels, type, get(type), lastTrack));
+        }
+        return metrics.build();
+    }
+}
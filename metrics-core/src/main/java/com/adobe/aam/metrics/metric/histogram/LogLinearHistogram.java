@@ -0,0 +1,193 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.metric.histogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * A fixed-memory histogram with log-linear buckets, similar to HdrHistogram.
+ *
+ * Each power of two between the lowest discernible value and the highest trackable value is split into
+ * 2^precisionBits linear sub-buckets, so any recorded value is reported with a relative error of at most
+ * 2^-(precisionBits + 1). The bucket of a value is computed from the exponent and the top mantissa bits of its
+ * double representation, and recording is a single atomic increment, so the histogram never locks or allocates.
+ *
+ * Values below the lowest discernible value (including zero and negative values) are counted in a dedicated zero
+ * bucket. Values above the highest trackable value are counted in the last bucket. The exact min, max and sum are
+ * tracked separately.
+ */
+public class LogLinearHistogram {
+
+    public static final int DEFAULT_PRECISION_BITS = 6;
+    public static final double DEFAULT_LOWEST_DISCERNIBLE_VALUE = 0.001;
+    public static final double DEFAULT_HIGHEST_TRACKABLE_VALUE = 1e12;
+
+    private static final int MANTISSA_BITS = 52;
+    private static final long MANTISSA_MASK = (1L << MANTISSA_BITS) - 1;
+    private static final long MIN_RESET_BITS = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+    private static final long MAX_RESET_BITS = Double.doubleToRawLongBits(Double.NEGATIVE_INFINITY);
+
+    private final int precisionBits;
+    private final int minExponent;
+    private final int maxExponent;
+    private final AtomicLongArray counts;
+    private final DoubleAdder sum = new DoubleAdder();
+    private final AtomicLong minBits = new AtomicLong(MIN_RESET_BITS);
+    private final AtomicLong maxBits = new AtomicLong(MAX_RESET_BITS);
+
+    public LogLinearHistogram() {
+        this(DEFAULT_PRECISION_BITS, DEFAULT_LOWEST_DISCERNIBLE_VALUE, DEFAULT_HIGHEST_TRACKABLE_VALUE);
+    }
+
+    /**
+     * @param precisionBits          the number of sub-buckets per power of two, as a power of two (1 to 10)
+     * @param lowestDiscernibleValue the smallest value which is not counted as zero
+     * @param highestTrackableValue  the largest value which can be told apart from larger ones
+     */
+    public LogLinearHistogram(int precisionBits, double lowestDiscernibleValue, double highestTrackableValue) {
+        if (precisionBits < 1 || precisionBits > 10) {
+            throw new IllegalArgumentException("The precision must be between 1 and 10 bits: " + precisionBits);
+        }
+        if (!(lowestDiscernibleValue > 0) || !(highestTrackableValue > lowestDiscernibleValue)) {
+            throw new IllegalArgumentException("Invalid histogram range: [" + lowestDiscernibleValue + ", "
+                    + highestTrackableValue + "]");
+        }
+
+        this.precisionBits = precisionBits;
+        this.minExponent = Math.getExponent(lowestDiscernibleValue);
+        this.maxExponent = Math.getExponent(highestTrackableValue);
+        this.counts = new AtomicLongArray(1 + ((maxExponent - minExponent + 1) << precisionBits));
+    }
+
+    /**
+     * Records a value. This is lock-free and does not allocate. NaN values are ignored.
+     */
+    public void record(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+
+        counts.incrementAndGet(indexOf(value));
+        sum.add(value);
+        updateMin(value);
+        updateMax(value);
+    }
+
+    /**
+     * @return the values recorded since the last reset. The histogram keeps recording.
+     */
+    public HistogramSnapshot snapshot() {
+        return collect(false);
+    }
+
+    /**
+     * @return the values recorded since the last reset, and starts a new interval. Every recorded value is counted
+     * in exactly one interval, but the buckets, the sum, the min and the max are reset one after the other: a value
+     * recorded during the reset may be counted in one interval, and added to the sum, min or max of the next one.
+     */
+    public HistogramSnapshot snapshotAndReset() {
+        return collect(true);
+    }
+
+    /**
+     * @return the number of buckets, which determines the memory used by this histogram (8 bytes per bucket).
+     */
+    public int bucketCount() {
+        return counts.length();
+    }
+
+    int indexOf(double value) {
+        if (!(value > 0)) {
+            return 0;
+        }
+
+        int exponent = Math.getExponent(value);
+        if (exponent < minExponent) {
+            return 0;
+        }
+        if (exponent > maxExponent) {
+            return counts.length() - 1;
+        }
+
+        int subBucket = (int) ((Double.doubleToRawLongBits(value) & MANTISSA_MASK) >>> (MANTISSA_BITS - precisionBits));
+        return 1 + ((exponent - minExponent) << precisionBits) + subBucket;
+    }
+
+    /**
+     * @return the value reported for the given bucket: the middle of the bucket, or zero for the zero bucket
+     */
+    double valueOf(int index) {
+        if (index == 0) {
+            return 0;
+        }
+
+        int exponent = minExponent + ((index - 1) >> precisionBits);
+        int subBucket = (index - 1) & ((1 << precisionBits) - 1);
+        double subBuckets = 1 << precisionBits;
+        return Math.scalb(1 + (subBucket + 0.5) / subBuckets, exponent);
+    }
+
+    private HistogramSnapshot collect(boolean reset) {
+        int nonEmpty = 0;
+        long[] counted = new long[counts.length()];
+        for (int i = 0; i < counted.length; i++) {
+            long count = counts.get(i);
+            if (count != 0 && reset) {
+                count = counts.getAndSet(i, 0);
+            }
+            counted[i] = count;
+            if (count != 0) {
+                nonEmpty++;
+            }
+        }
+
+        double total = reset ? sum.sumThenReset() : sum.sum();
+        double min = Double.longBitsToDouble(reset ? minBits.getAndSet(MIN_RESET_BITS) : minBits.get());
+        double max = Double.longBitsToDouble(reset ? maxBits.getAndSet(MAX_RESET_BITS) : maxBits.get());
+
+        double[] values = new double[nonEmpty];
+        long[] valueCounts = new long[nonEmpty];
+        for (int i = 0, j = 0; i < counted.length; i++) {
+            if (counted[i] != 0) {
+                values[j] = valueOf(i);
+                valueCounts[j] = counted[i];
+                j++;
+            }
+        }
+
+        return new HistogramSnapshot(values, valueCounts, total, min, max);
+    }
+
+    private void updateMin(double value) {
+        long newBits = Double.doubleToRawLongBits(value);
+        while (true) {
+            long currentBits = minBits.get();
+            if (!(value < Double.longBitsToDouble(currentBits)) || minBits.compareAndSet(currentBits, newBits)) {
+                return;
+            }
+        }
+    }
+
+    private void updateMax(double value) {
+        long newBits = Double.doubleToRawLongBits(value);
+        while (true) {
+            long currentBits = maxBits.get();
+            if (!(value > Double.longBitsToDouble(currentBits)) || maxBits.compareAndSet(currentBits, newBits)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.metric.histogram;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * A fixed-memory quantile sketch with relative-error guarantees, following the DDSketch design.
+ *
+ * A value v is counted in the bin i such that gamma^(i-1) &lt; v &lt;= gamma^i, with
+ * gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy). Reporting every bin by the same representative value
+ * guarantees that any quantile of the values within [minValue, maxValue] is off by at most relativeAccuracy.
+ * Bins are identified by their absolute index, so the state of two sketches with the same relative accuracy can
+ * be merged by simply adding their bins, wherever they were recorded (see {@link SketchSnapshot}).
+ *
+ * Recording is a single atomic increment, so the sketch never locks or allocates. Values below minValue (including
+ * zero and negative values) are counted in a zero bin, and values above maxValue in the highest bin.
+ */
+public class QuantileSketch {
+
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+    public static final double DEFAULT_MIN_VALUE = 0.001;
+    public static final double DEFAULT_MAX_VALUE = 1e12;
+
+    private static final long MIN_RESET_BITS = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+    private static final long MAX_RESET_BITS = Double.doubleToRawLongBits(Double.NEGATIVE_INFINITY);
+
+    private final double relativeAccuracy;
+    private final double minValue;
+    private final double multiplier;
+    private final int minIndex;
+    private final AtomicLongArray bins;
+    private final AtomicLong zeroCount = new AtomicLong();
+    private final DoubleAdder sum = new DoubleAdder();
+    private final AtomicLong minBits = new AtomicLong(MIN_RESET_BITS);
+    private final AtomicLong maxBits = new AtomicLong(MAX_RESET_BITS);
+
+    public QuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY, DEFAULT_MIN_VALUE, DEFAULT_MAX_VALUE);
+    }
+
+    /**
+     * @param relativeAccuracy the maximum relative error of the reported quantiles (eg. 0.01 for 1%)
+     * @param minValue         the smallest value which is not counted as zero
+     * @param maxValue         the largest value for which the relative accuracy is guaranteed
+     */
+    public QuantileSketch(double relativeAccuracy, double minValue, double maxValue) {
+        if (!(relativeAccuracy > 0) || !(relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("The relative accuracy must be between 0 and 1: " + relativeAccuracy);
+        }
+        if (!(minValue > 0) || !(maxValue > minValue)) {
+            throw new IllegalArgumentException("Invalid sketch range: [" + minValue + ", " + maxValue + "]");
+        }
+
+        this.relativeAccuracy = relativeAccuracy;
+        this.minValue = minValue;
+        this.multiplier = multiplier(relativeAccuracy);
+        this.minIndex = index(minValue, multiplier);
+        this.bins = new AtomicLongArray(index(maxValue, multiplier) - minIndex + 1);
+    }
+
+    /**
+     * Records a value. This is lock-free and does not allocate. NaN values are ignored.
+     */
+    public void record(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+
+        if (value < minValue) {
+            zeroCount.incrementAndGet();
+        } else {
+            int bin = Math.min(index(value, multiplier) - minIndex, bins.length() - 1);
+            bins.incrementAndGet(bin);
+        }
+        sum.add(value);
+        updateMin(value);
+        updateMax(value);
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * @return the values recorded since the last reset. The sketch keeps recording.
+     */
+    public SketchSnapshot snapshot() {
+        return collect(false);
+    }
+
+    /**
+     * @return the values recorded since the last reset, and starts a new interval. Every recorded value is counted
+     * in exactly one interval, but the bins, the zero count, the sum, the min and the max are reset one after the
+     * other: a value recorded during the reset may be counted in one interval, and added to the sum, min or max of
+     * the next one.
+     */
+    public SketchSnapshot snapshotAndReset() {
+        return collect(true);
+    }
+
+    private SketchSnapshot collect(boolean reset) {
+        long[] counts = new long[bins.length()];
+        int first = -1;
+        int last = -1;
+        for (int i = 0; i < counts.length; i++) {
+            long count = bins.get(i);
+            if (count != 0 && reset) {
+                count = bins.getAndSet(i, 0);
+            }
+            counts[i] = count;
+            if (count != 0) {
+                first = first < 0 ? i : first;
+                last = i;
+            }
+        }
+
+        long zeros = reset ? zeroCount.getAndSet(0) : zeroCount.get();
+        double total = reset ? sum.sumThenReset() : sum.sum();
+        double min = Double.longBitsToDouble(reset ? minBits.getAndSet(MIN_RESET_BITS) : minBits.get());
+        double max = Double.longBitsToDouble(reset ? maxBits.getAndSet(MAX_RESET_BITS) : maxBits.get());
+
+        long[] used = first < 0 ? new long[0] : Arrays.copyOfRange(counts, first, last + 1);
+        return new SketchSnapshot(relativeAccuracy, minIndex + Math.max(first, 0), used, zeros, total, min, max);
+    }
+
+    static double multiplier(double relativeAccuracy) {
+        double gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        return 1 / Math.log(gamma);
+    }
+
+    static int index(double value, double multiplier) {
+        return (int) Math.ceil(Math.log(value) * multiplier);
+    }
+
+    private void updateMin(double value) {
+        long newBits = Double.doubleToRawLongBits(value);
+        while (true) {
+            long currentBits = minBits.get();
+            if (!(value < Double.longBitsToDouble(currentBits)) || minBits.compareAndSet(currentBits, newBits)) {
+                return;
+            }
+        }
+    }
+
+    private void updateMax(double value) {
+        long newBits = Double.doubleToRawLongBits(value);
+        while (true) {
+            long currentBits = maxBits.get();
+            if (!(value > Double.longBitsToDouble(currentBits)) || maxBits.compareAndSet(currentBits, newBits)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.metric.histogram;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * An immutable view of the values recorded by a {@link QuantileSketch} during one interval.
+ *
+ * Unlike percentiles, snapshots can be combined: merging the snapshots of several hosts (or several series) gives
+ * exactly the snapshot that a single sketch would have recorded, so the merged quantiles keep the same relative
+ * accuracy. Snapshots can be serialized with {@link #toByteArray()}, so that any consumer can merge them.
+ */
+public class SketchSnapshot {
+
+    private static final byte FORMAT_VERSION = 1;
+    // The bytes of a serialized bin: its index and its count.
+    private static final int BIN_BYTES = Integer.BYTES + Long.BYTES;
+
+    /**
+     * The maximum number of bins spanned by a deserialized snapshot. The default sketch spans less than 2000 bins.
+     */
+    public static final int MAX_BINS = 1 << 20;
+
+    private final double relativeAccuracy;
+    private final int offset;
+    private final long[] counts;
+    private final long zeroCount;
+    private final long count;
+    private final double sum;
+    private final double min;
+    private final double max;
+
+    /**
+     * @param relativeAccuracy the relative accuracy of the sketch which recorded the values
+     * @param offset           the absolute index of the first bin
+     * @param counts           the number of values in each bin, starting with the bin at offset
+     * @param zeroCount        the number of values below the minimum value of the sketch
+     */
+    public SketchSnapshot(double relativeAccuracy, int offset, long[] counts, long zeroCount, double sum, double min,
+                          double max) {
+        this.relativeAccuracy = relativeAccuracy;
+        this.offset = offset;
+        this.counts = counts;
+        this.zeroCount = zeroCount;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+
+        long count = zeroCount;
+        for (long binCount : counts) {
+            count += binCount;
+        }
+        this.count = count;
+    }
+
+    /**
+     * @return an empty snapshot, which can be used as the starting point of a merge
+     */
+    public static SketchSnapshot empty(double relativeAccuracy) {
+        return new SketchSnapshot(relativeAccuracy, 0, new long[0], 0, 0,
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY);
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * @return the values recorded by both snapshots
+     * @throws IllegalArgumentException if the snapshots were recorded with a different relative accuracy
+     */
+    public SketchSnapshot merge(SketchSnapshot other) {
+        if (Double.compare(relativeAccuracy, other.relativeAccuracy) != 0) {
+            throw new IllegalArgumentException("Cannot merge sketches with a different relative accuracy: "
+                    + relativeAccuracy + " and " + other.relativeAccuracy);
+        }
+        if (other.counts.length == 0 || counts.length == 0) {
+            int start = counts.length == 0 ? other.offset : offset;
+            long[] merged = counts.length == 0 ? other.counts : counts;
+            return new SketchSnapshot(relativeAccuracy, start, merged, zeroCount + other.zeroCount,
+                    sum + other.sum, Math.min(min, other.min), Math.max(max, other.max));
+        }
+
+        int start = Math.min(offset, other.offset);
+        int end = Math.max(offset + counts.length, other.offset + other.counts.length);
+        long[] merged = new long[end - start];
+        for (int i = 0; i < counts.length; i++) {
+            merged[offset - start + i] += counts[i];
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            merged[other.offset - start + i] += other.counts[i];
+        }
+
+        return new SketchSnapshot(relativeAccuracy, start, merged, zeroCount + other.zeroCount, sum + other.sum,
+                Math.min(min, other.min), Math.max(max, other.max));
+    }
+
+    /**
+     * @return the recorded values, in the form used to compute the min, max, avg and percentile series
+     */
+    public HistogramSnapshot toHistogramSnapshot() {
+        int nonEmpty = zeroCount == 0 ? 0 : 1;
+        for (long binCount : counts) {
+            if (binCount != 0) {
+                nonEmpty++;
+            }
+        }
+
+        double[] values = new double[nonEmpty];
+        long[] valueCounts = new long[nonEmpty];
+        int j = 0;
+        if (zeroCount != 0) {
+            values[j] = 0;
+            valueCounts[j] = zeroCount;
+            j++;
+        }
+
+        double gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                // The bin covers (gamma^(index-1), gamma^index], and this value is within relativeAccuracy of both.
+                values[j] = 2 * Math.pow(gamma, offset + i) / (gamma + 1);
+                valueCounts[j] = counts[i];
+                j++;
+            }
+        }
+
+        return new HistogramSnapshot(values, valueCounts, sum, min, max);
+    }
+
+    /**
+     * @return the serialized snapshot, which only contains the non-empty bins
+     */
+    public byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeDouble(relativeAccuracy);
+            out.writeLong(zeroCount);
+            out.writeDouble(sum);
+            out.writeDouble(min);
+            out.writeDouble(max);
+
+            int nonEmpty = 0;
+            for (long binCount : counts) {
+                if (binCount != 0) {
+                    nonEmpty++;
+                }
+            }
+            out.writeInt(nonEmpty);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    out.writeInt(offset + i);
+                    out.writeLong(counts[i]);
+                }
+            }
+        } catch (IOException e) {
+            // Writing to a byte array does not fail.
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param bytes a snapshot serialized by {@link #toByteArray()}
+     * @throws IllegalArgumentException if the bytes do not hold a valid snapshot
+     */
+    public static SketchSnapshot fromByteArray(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported sketch format: " + version);
+            }
+
+            double relativeAccuracy = in.readDouble();
+            if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+                throw new IllegalArgumentException("Invalid relative accuracy: " + relativeAccuracy);
+            }
+            long zeroCount = in.readLong();
+            if (zeroCount < 0) {
+                throw new IllegalArgumentException("Invalid count of values below the minimum: " + zeroCount);
+            }
+            double sum = in.readDouble();
+            double min = in.readDouble();
+            double max = in.readDouble();
+
+            int nonEmpty = in.readInt();
+            if (nonEmpty < 0 || nonEmpty > in.available() / BIN_BYTES) {
+                throw new IllegalArgumentException("Invalid number of bins: " + nonEmpty);
+            }
+            int[] indexes = new int[nonEmpty];
+            long[] binCounts = new long[nonEmpty];
+            for (int i = 0; i < nonEmpty; i++) {
+                indexes[i] = in.readInt();
+                binCounts[i] = in.readLong();
+                if (i > 0 && indexes[i] <= indexes[i - 1]) {
+                    throw new IllegalArgumentException("The bins are not in ascending order.");
+                }
+                if (binCounts[i] < 0) {
+                    throw new IllegalArgumentException("Invalid count of bin " + indexes[i] + ": " + binCounts[i]);
+                }
+            }
+
+            int offset = nonEmpty == 0 ? 0 : indexes[0];
+            long span = nonEmpty == 0 ? 0 : (long) indexes[nonEmpty - 1] - offset + 1;
+            if (span > MAX_BINS) {
+                throw new IllegalArgumentException("The bins span " + span + " indexes, more than " + MAX_BINS + ".");
+            }
+            long[] counts = new long[(int) span];
+            for (int i = 0; i < nonEmpty; i++) {
+                counts[indexes[i] - offset] = binCounts[i];
+            }
+
+            return new SketchSnapshot(relativeAccuracy, offset, counts, zeroCount, sum, min, max);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid sketch.", e);
+        }
+    }
+}
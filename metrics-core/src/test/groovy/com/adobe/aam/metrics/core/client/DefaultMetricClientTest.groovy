@@ -14,8 +14,11 @@
 package com.adobe.aam.metrics.core.client
 
 import com.adobe.aam.metrics.core.config.PublisherConfig
+import com.adobe.aam.metrics.core.publish.MetricSnapshot
 import com.adobe.aam.metrics.core.publish.Publisher
+import com.adobe.aam.metrics.metric.ImmutableMetricLabels
 import com.adobe.aam.metrics.metric.Metric
+import com.adobe.aam.metrics.metric.MetricLabels
 import com.adobe.aam.metrics.metric.SimpleMetric
 import com.google.common.collect.Queues
 import spock.lang.Specification
@@ -129,6 +132,41 @@ class DefaultMetricClientTest extends Specification {
         metric.get() == 100
     }
 
+    def "test the snapshot is filtered on its labels and types"() {
+
+        setup:
+        def actualSnapshotSent = new BlockingVariable<MetricSnapshot>()
+        def publisher = Mock(Publisher) {
+            publishSnapshot(*_) >> { snapshot ->
+                actualSnapshotSent.set(snapshot[0])
+            }
+
+            isAllowed(_ as MetricLabels, _ as Type) >> { labels, type ->
+                labels.metricName() != "blocked"
+            }
+
+            // The series of a snapshot are not built as metrics just to be filtered.
+            isAllowed(_ as Metric) >> { throw new AssertionError("The snapshot was filtered metric by metric.") }
+
+            config() >> Mock(PublisherConfig)
+        }
+
+        def metricClient = new DefaultMetricClient(queue, publisher)
+
+        when:
+        metricClient.send(MetricSnapshot.builder(2)
+                .add(ImmutableMetricLabels.builder().metricName("latency").build(), Type.AVG, 50, 1000)
+                .add(ImmutableMetricLabels.builder().metricName("blocked").build(), Type.AVG, 10, 1000)
+                .build(2000))
+        metricClient.flush()
+
+        then:
+        def snapshotSent = actualSnapshotSent.get()
+        snapshotSent.size() == 1
+        snapshotSent.getLabels(0).metricName() == "latency"
+        snapshotSent.getValue(0) == 50
+    }
+
     def Metric genMetric(name, type, value) {
         return new SimpleMetric(name, type, value)
     }
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.agent;
+
+import com.adobe.aam.metrics.core.client.DefaultMetricClient;
+import com.adobe.aam.metrics.core.config.ImmutablePublisherConfig;
+import com.adobe.aam.metrics.core.config.PublisherConfig;
+import com.adobe.aam.metrics.core.publish.MetricSnapshot;
+import com.adobe.aam.metrics.core.publish.Publisher;
+import com.adobe.aam.metrics.metric.ImmutableTags;
+import com.adobe.aam.metrics.metric.Metric;
+import com.adobe.aam.metrics.metric.SketchMetric;
+import com.adobe.aam.metrics.metric.Tags;
+import com.adobe.aam.metrics.metric.bucket.MetricBucketImpl;
+import com.adobe.aam.metrics.metric.bucket.SlabMetricBucket;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class MetricAgentTest {
+
+    private static final double DELTA = 0;
+    private static final Tags TAGS = ImmutableTags.builder().appName("myapp").build();
+
+    @Test
+    public void testPublishesSnapshot() {
+        MetricBucketImpl requests = new MetricBucketImpl("request", Metric.Type.COUNT, "status");
+        requests.getMetric("200").track(5);
+        Metric latency = Metric.newInstance("latency", Metric.Type.AVG);
+        latency.track(10);
+        Metric provided = Metric.newInstance("queue", Metric.Type.GAUGE);
+        SketchMetric sketch = new SketchMetric("size");
+        sketch.track(1);
+
+        RecordingPublisher sketches = new RecordingPublisher(true);
+        RecordingPublisher values = new RecordingPublisher(false);
+        DefaultMetricClient client = new DefaultMetricClient(new ConcurrentLinkedQueue<>(),
+                Lists.newArrayList(sketches, values), MoreExecutors.sameThreadExecutor());
+
+        MetricAgent agent = new MetricAgent(client, ImmutableMetricAgentConfig.builder()
+                .addMetrics(latency, requests.getMetric("200"), sketch)
+                .addMetricBuckets(requests)
+                .putMetricValueProviders(provided, () -> Optional.of(7.0))
+                .tags(TAGS)
+                .build());
+        agent.runOneIteration();
+
+        // Both publishers share the same snapshot, but only one of them gets the sketch.
+        MetricSnapshot published = values.snapshot;
+        Assert.assertEquals(sketches.snapshot.size() - 1, published.size());
+        Assert.assertSame(sketches.snapshot.getMetric(0), published.getMetric(0));
+        for (int i = 0; i < published.size(); i++) {
+            Assert.assertNotEquals(Metric.Type.SKETCH, published.getType(i));
+        }
+
+        Assert.assertEquals(10, valueOf(published, "latency", Metric.Type.AVG), DELTA);
+        Assert.assertEquals(5, valueOf(published, "request", Metric.Type.COUNT), DELTA);
+        Assert.assertEquals(7, valueOf(published, "queue", Metric.Type.GAUGE), DELTA);
+        Assert.assertEquals(1, valueOf(published, "size", Metric.Type.COUNT), DELTA);
+
+        // The averages are reset by the agent, the counters are not.
+        Assert.assertEquals(0, latency.get(), DELTA);
+        Assert.assertEquals(5, requests.getMetric("200").get(), DELTA);
+    }
+
+    @Test
+    public void testPublishesSlabSeries() {
+        SlabMetricBucket requests = new SlabMetricBucket("request", Metric.Type.COUNT, "user");
+        requests.track("alice", 5);
+        requests.getParentMetric().track(5);
+
+        RecordingPublisher publisher = new RecordingPublisher(false);
+        DefaultMetricClient client = new DefaultMetricClient(new ConcurrentLinkedQueue<>(),
+                Lists.newArrayList(publisher), MoreExecutors.sameThreadExecutor());
+        MetricAgent agent = new MetricAgent(client, ImmutableMetricAgentConfig.builder()
+                .addMetricBuckets(requests)
+                .tags(TAGS)
+                .build());
+        agent.runOneIteration();
+        requests.track("alice", 2);
+        agent.runOneIteration();
+
+        MetricSnapshot published = publisher.snapshot;
+        Assert.assertEquals(2, published.size());
+        Assert.assertEquals("alice", published.getLabels(0).postLabelValues().get(0));
+        Assert.assertEquals(7, published.getValue(0), DELTA);
+        Assert.assertEquals(2, published.getIncrement(0), DELTA);
+        Assert.assertSame(requests.getParentMetric(), published.getMetric(1));
+    }
+
+    private static double valueOf(MetricSnapshot snapshot, String name, Metric.Type type) {
+        int found = -1;
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (snapshot.getLabels(i).metricName().equals(name) && snapshot.getType(i) == type) {
+                Assert.assertEquals("Series " + name + " was published twice.", -1, found);
+                found = i;
+            }
+        }
+        Assert.assertNotEquals("Series " + name + " was not published.", -1, found);
+        return snapshot.getValue(found);
+    }
+
+    private static class RecordingPublisher implements Publisher {
+
+        private final PublisherConfig config = ImmutablePublisherConfig.builder()
+                .type("test")
+                .name("test")
+                .host("localhost")
+                .tags(TAGS)
+                .build();
+        private final boolean acceptsSketches;
+        private MetricSnapshot snapshot;
+
+        RecordingPublisher(boolean acceptsSketches) {
+            this.acceptsSketches = acceptsSketches;
+        }
+
+        @Override
+        public void publishSnapshot(MetricSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public void publishMetrics(Collection<Metric> metrics) {
+            throw new AssertionError("The snapshot should be published as it is.");
+        }
+
+        @Override
+        public PublisherConfig config() {
+            return config;
+        }
+
+        @Override
+        public boolean acceptsSketches() {
+            return acceptsSketches;
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+}
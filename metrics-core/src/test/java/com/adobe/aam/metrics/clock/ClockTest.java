@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.clock;
+
+import com.adobe.aam.metrics.core.config.ImmutablePublisherConfig;
+import com.adobe.aam.metrics.core.publish.AbstractPublisher;
+import com.adobe.aam.metrics.metric.ImmutableTags;
+import com.adobe.aam.metrics.metric.Metric;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class ClockTest {
+
+    private final Clock defaultClock = Metric.getClock();
+
+    @After
+    public void restoreClock() {
+        Metric.setClock(defaultClock);
+    }
+
+    @Test
+    public void testDefaultClockIsCoarse() {
+        Assert.assertSame(CoarseClock.getDefault(), defaultClock);
+    }
+
+    @Test
+    public void testCoarseClockIsRefreshed() throws InterruptedException {
+        CoarseClock clock = new CoarseClock(1);
+        try {
+            long start = clock.time();
+            Thread.sleep(50);
+            Assert.assertTrue(clock.time() > start);
+            Assert.assertTrue(Math.abs(System.currentTimeMillis() - clock.time()) < 1000);
+        } finally {
+            clock.shutdown();
+        }
+    }
+
+    @Test
+    public void testTrackTimeUsesClock() {
+        ManualClock clock = new ManualClock(1000);
+        Metric.setClock(clock);
+
+        Metric metric = Metric.newInstance("requests", Metric.Type.COUNT);
+        clock.advance(5, TimeUnit.SECONDS);
+        metric.track(1);
+        Assert.assertEquals(6000, metric.getLastTrackTime());
+
+        clock.advance(1, TimeUnit.SECONDS);
+        metric.getAndReset();
+        Assert.assertEquals(7000, metric.getLastResetTime());
+    }
+
+    @Test
+    public void testOnlyRecentlyUpdatedMetricsArePublished() throws Exception {
+        ManualClock clock = new ManualClock(1000);
+        Metric.setClock(clock);
+
+        List<Metric> published = Lists.newArrayList();
+        AbstractPublisher publisher = new AbstractPublisher(ImmutablePublisherConfig.builder()
+                .type("test")
+                .name("test")
+                .host("localhost")
+                .sendOnlyRecentlyUpdatedMetrics(true)
+                .publishFrequencyMs(60000)
+                .tags(ImmutableTags.builder().build())
+                .build()) {
+
+            @Override
+            public void doPublishMetrics(Collection<Metric> metrics) {
+                published.addAll(metrics);
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+
+        Metric stale = Metric.newInstance("requests.stale", Metric.Type.COUNT);
+        Metric recent = Metric.newInstance("requests.recent", Metric.Type.COUNT);
+        stale.track(1);
+        clock.advance(2, TimeUnit.MINUTES);
+        recent.track(1);
+        clock.advance(30, TimeUnit.SECONDS);
+
+        publisher.publishMetrics(ImmutableList.of(stale, recent));
+        Assert.assertEquals(ImmutableList.of(recent), published);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.clock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A clock which only moves when told to, for tests.
+ */
+public class ManualClock implements Clock {
+
+    private final long startTime;
+    private final AtomicLong ticks = new AtomicLong();
+
+    public ManualClock() {
+        this(0);
+    }
+
+    /**
+     * @param startTime the initial wall clock time, in milliseconds since the epoch
+     */
+    public ManualClock(long startTime) {
+        this.startTime = startTime;
+    }
+
+    /**
+     * Moves both the ticks and the wall clock time forward.
+     */
+    public void advance(long duration, TimeUnit unit) {
+        ticks.addAndGet(unit.toNanos(duration));
+    }
+
+    @Override
+    public long tick() {
+        return ticks.get();
+    }
+
+    @Override
+    public long time() {
+        return startTime + TimeUnit.NANOSECONDS.toMillis(ticks.get());
+    }
+}
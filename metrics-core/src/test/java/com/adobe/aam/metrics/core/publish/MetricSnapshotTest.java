@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.core.publish;
+
+import com.adobe.aam.metrics.metric.Metric;
+import com.adobe.aam.metrics.metric.MetricLabels;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class MetricSnapshotTest {
+
+    private static final double DELTA = 0;
+
+    @Test
+    public void testColumns() {
+        Metric counter = Metric.newInstance("request", Metric.Type.COUNT);
+        counter.track(3);
+
+        MetricSnapshot.Builder builder = MetricSnapshot.builder(0);
+        for (int i = 0; i < 100; i++) {
+            builder.add(MetricLabels.of("latency" + i), Metric.Type.AVG, i, 1000 + i);
+        }
+        builder.add(counter);
+        MetricSnapshot snapshot = builder.build(5000);
+
+        Assert.assertEquals(101, snapshot.size());
+        Assert.assertEquals(5000, snapshot.getCaptureTime());
+        Assert.assertEquals("latency42", snapshot.getLabels(42).metricName());
+        Assert.assertEquals(Metric.Type.AVG, snapshot.getType(42));
+        Assert.assertEquals(42, snapshot.getValue(42), DELTA);
+        Assert.assertEquals(1042, snapshot.getLastTrackTime(42));
+        Assert.assertEquals(Metric.Type.COUNT, snapshot.getType(100));
+        Assert.assertEquals(3, snapshot.getValue(100), DELTA);
+    }
+
+    @Test
+    public void testAsMetrics() {
+        Metric counter = Metric.newInstance("request", Metric.Type.COUNT);
+        MetricSnapshot snapshot = MetricSnapshot.builder(2)
+                .add(MetricLabels.of("latency"), Metric.Type.AVG, 12, 1000)
+                .add(counter)
+                .build(5000);
+
+        List<Metric> metrics = snapshot.asMetrics();
+        Assert.assertEquals(2, metrics.size());
+        Assert.assertEquals("latency", metrics.get(0).getName());
+        Assert.assertEquals(Metric.Type.AVG, metrics.get(0).getType());
+        Assert.assertEquals(12, metrics.get(0).get(), DELTA);
+        Assert.assertEquals(1000, metrics.get(0).getLastTrackTime());
+        // The metrics are built once, and the counters are handed over as they are.
+        Assert.assertSame(metrics.get(0), snapshot.asMetrics().get(0));
+        Assert.assertSame(counter, metrics.get(1));
+    }
+
+    @Test
+    public void testCountersWithTheirIncrement() {
+        Metric counter = Metric.newInstance("request", Metric.Type.COUNT);
+        counter.track(3);
+        MetricSnapshot.Builder builder = MetricSnapshot.builder(0).add(counter);
+        for (int i = 0; i < 20; i++) {
+            builder.addCounter(MetricLabels.of("error" + i), 10 + i, i, 1000);
+        }
+        builder.add(MetricLabels.of("latency"), Metric.Type.AVG, 12, 1000);
+        MetricSnapshot snapshot = builder.build(5000);
+
+        Assert.assertTrue(Double.isNaN(snapshot.getIncrement(0)));
+        Assert.assertEquals(15, snapshot.getValue(6), DELTA);
+        Assert.assertEquals(5, snapshot.getIncrement(6), DELTA);
+        Assert.assertTrue(Double.isNaN(snapshot.getIncrement(21)));
+        Assert.assertEquals(5, snapshot.filter(index -> index == 6).getIncrement(0), DELTA);
+
+        // The publishers which reset counters get the increment, the others the value.
+        Metric metric = snapshot.getMetric(6);
+        Assert.assertEquals(15, metric.get(), DELTA);
+        Assert.assertEquals(5, new ResetCounterHelperImpl().resetIfCounter(metric), DELTA);
+        Assert.assertEquals(15, new ResetCounterHelperNoop().resetIfCounter(metric), DELTA);
+    }
+
+    @Test
+    public void testFilterSharesColumns() {
+        MetricSnapshot.Builder builder = MetricSnapshot.builder(10);
+        for (int i = 0; i < 10; i++) {
+            builder.add(MetricLabels.of("latency" + i), Metric.Type.AVG, i, 0);
+        }
+        MetricSnapshot snapshot = builder.build(0);
+
+        MetricSnapshot odd = snapshot.filter(index -> index % 2 == 1);
+        Assert.assertEquals(5, odd.size());
+        Assert.assertEquals(7, odd.getValue(3), DELTA);
+        Assert.assertSame(snapshot.getMetric(7), odd.getMetric(3));
+
+        MetricSnapshot oddAboveFive = odd.filter(index -> odd.getValue(index) > 5);
+        Assert.assertEquals(2, oddAboveFive.size());
+        Assert.assertEquals(9, oddAboveFive.getValue(1), DELTA);
+
+        Assert.assertSame(snapshot, snapshot.filter(index -> true));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIndexOutOfFilteredSnapshot() {
+        MetricSnapshot snapshot = MetricSnapshot.builder(2)
+                .add(MetricLabels.of("a"), Metric.Type.AVG, 1, 0)
+                .add(MetricLabels.of("b"), Metric.Type.AVG, 2, 0)
+                .build(0);
+        snapshot.filter(index -> index == 0).getValue(1);
+    }
+}
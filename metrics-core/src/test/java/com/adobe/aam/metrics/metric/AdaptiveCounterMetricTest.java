@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class AdaptiveCounterMetricTest {
+
+	private static final double DELTA = 0;
+
+	@Test
+	public void testNewInstanceIsAdaptive() {
+		Metric metric = Metric.newInstance("requests", Metric.Type.COUNT);
+		Assert.assertTrue(metric instanceof AdaptiveCounterMetric);
+		Assert.assertFalse(((AdaptiveCounterMetric) metric).isInflated());
+	}
+
+	@Test
+	public void testSingleField() {
+		AdaptiveCounterMetric metric = new AdaptiveCounterMetric(MetricLabels.of("requests"));
+		metric.add(1L << 53);
+		metric.increment();
+		metric.track(2);
+		metric.track(0.5);
+
+		Assert.assertFalse(metric.isInflated());
+		Assert.assertEquals((1L << 53) + 4, metric.getLong());
+		metric.getAndReset();
+		Assert.assertEquals(0, metric.get(), DELTA);
+
+		metric.track(2);
+		metric.track(0.5);
+		Assert.assertEquals(2.5, metric.getAndReset(), DELTA);
+	}
+
+	@Test
+	public void testInflated() {
+		AdaptiveCounterMetric metric = new AdaptiveCounterMetric(MetricLabels.of("requests"));
+		metric.add(5);
+		metric.inflate();
+		metric.add(3);
+		metric.track(-1);
+
+		Assert.assertTrue(metric.isInflated());
+		Assert.assertEquals(7, metric.getLong());
+		Assert.assertEquals(7, metric.getAndReset(), DELTA);
+		Assert.assertEquals(0, metric.getLong());
+	}
+
+	@Test
+	public void testIncrementFromMultipleThreads() throws InterruptedException {
+		AdaptiveCounterMetric metric = new AdaptiveCounterMetric(MetricLabels.of("requests"));
+		int nrThreads = 4;
+		int nrUpdates = 100000;
+
+		List<Thread> threads = Lists.newArrayList();
+		for (int i = 0; i < nrThreads; i++) {
+			Thread thread = new Thread(() -> {
+				for (int j = 0; j < nrUpdates; j++) {
+					metric.increment();
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		Assert.assertEquals(nrThreads * nrUpdates, metric.getLong());
+	}
+}
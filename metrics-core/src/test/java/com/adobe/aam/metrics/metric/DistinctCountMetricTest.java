@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import com.adobe.aam.metrics.metric.bucket.DistinctCountMetricBucket;
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class DistinctCountMetricTest {
+
+	@Test
+	public void testNewInstance() {
+		Metric metric = Metric.newInstance("users", Metric.Type.DISTINCT_COUNT);
+		Assert.assertTrue(metric instanceof DistinctCountMetric);
+	}
+
+	@Test
+	public void testSmallCardinalityIsNearlyExact() {
+		DistinctCountMetric metric = new DistinctCountMetric(MetricLabels.of("users"));
+		for (int repeat = 0; repeat < 3; repeat++) {
+			for (int i = 0; i < 100; i++) {
+				metric.offer("user-" + i);
+			}
+		}
+
+		Assert.assertEquals(100, metric.get(), 2);
+	}
+
+	@Test
+	public void testLargeCardinalityWithinError() {
+		DistinctCountMetric metric = new DistinctCountMetric(MetricLabels.of("users"), 14);
+		int distinct = 1000000;
+		for (long i = 0; i < distinct; i++) {
+			metric.offer(i);
+			metric.offer(i);
+		}
+
+		// The standard error is 1.04 / sqrt(2^14), about 0.8%: allow for 3 standard errors.
+		Assert.assertEquals(distinct, metric.getAndReset(), distinct * 0.025);
+		Assert.assertEquals(0, metric.get(), 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidPrecision() {
+		new DistinctCountMetric(MetricLabels.of("users"), 30);
+	}
+
+	@Test
+	public void testConcurrentOffers() throws InterruptedException {
+		DistinctCountMetric metric = new DistinctCountMetric(MetricLabels.of("users"));
+		int nrThreads = 4;
+		int distinct = 10000;
+
+		List<Thread> threads = Lists.newArrayList();
+		for (int i = 0; i < nrThreads; i++) {
+			Thread thread = new Thread(() -> {
+				for (int j = 0; j < distinct; j++) {
+					metric.offer((Object) ("user-" + j));
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		Assert.assertEquals(distinct, metric.get(), distinct * 0.05);
+	}
+
+	@Test
+	public void testBucketKeepsOneSketchPerLabel() {
+		DistinctCountMetricBucket bucket = new DistinctCountMetricBucket("users", "region", 10);
+		for (int i = 0; i < 50; i++) {
+			bucket.getMetric("us-east").offer(i);
+		}
+		for (int i = 0; i < 5; i++) {
+			bucket.getMetric("eu-west").offer(i);
+		}
+
+		Assert.assertEquals(10, bucket.getMetric("us-east").getPrecision());
+		Assert.assertEquals(50, bucket.getMetric("us-east").get(), 2);
+		Assert.assertEquals(5, bucket.getMetric("eu-west").get(), 1);
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import com.adobe.aam.metrics.metric.bucket.DoubleBufferedMetricBucket;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class DoubleBufferedMetricTest {
+
+	private static final double DELTA = 0;
+
+	@Test
+	public void testNewInstance() {
+		MetricLabels labels = MetricLabels.of("request.time");
+		Assert.assertTrue(DoubleBufferedMetric.newInstance(labels, Metric.Type.AVG) instanceof DoubleBufferedMetric);
+		Assert.assertTrue(DoubleBufferedMetric.newInstance(labels, Metric.Type.HISTOGRAM) instanceof CompositeMetric);
+		Assert.assertTrue(DoubleBufferedMetric.newInstance(labels, Metric.Type.COUNT) instanceof CounterMetric);
+	}
+
+	@Test
+	public void testIntervals() {
+		Metric metric = DoubleBufferedMetric.newInstance(MetricLabels.of("request.time"), Metric.Type.AVG);
+		Assert.assertEquals(Metric.Type.AVG, metric.getType());
+
+		metric.track(10);
+		metric.track(20);
+		Assert.assertEquals(15, metric.get(), DELTA);
+		Assert.assertEquals(15, metric.getAndReset(), DELTA);
+		Assert.assertEquals(0, metric.get(), DELTA);
+
+		metric.track(4);
+		Assert.assertEquals(4, metric.getAndReset(), DELTA);
+		Assert.assertEquals(0, metric.getAndReset(), DELTA);
+	}
+
+	@Test
+	public void testCompositeSeries() {
+		CompositeMetric metric = (CompositeMetric) DoubleBufferedMetric.newInstance(MetricLabels.of("request.time"),
+				Metric.Type.HISTOGRAM);
+		((Metric) metric).track(10);
+		((Metric) metric).track(30);
+
+		Map<Metric.Type, Metric> series = byType(metric.getAndResetSeries());
+		Assert.assertEquals(2, series.get(Metric.Type.COUNT).get(), DELTA);
+		Assert.assertEquals(20, series.get(Metric.Type.AVG).get(), DELTA);
+
+		// The COUNT series is cumulative across both buffers, and reported by the same metric on each interval.
+		((Metric) metric).track(50);
+		Map<Metric.Type, Metric> next = byType(metric.getAndResetSeries());
+		Assert.assertSame(series.get(Metric.Type.COUNT), next.get(Metric.Type.COUNT));
+		Assert.assertEquals(3, next.get(Metric.Type.COUNT).get(), DELTA);
+		Assert.assertEquals(50, next.get(Metric.Type.AVG).get(), DELTA);
+		Assert.assertEquals(3, byType(metric.getAndResetSeries()).get(Metric.Type.COUNT).get(), DELTA);
+	}
+
+	@Test
+	public void testBucket() {
+		DoubleBufferedMetricBucket bucket = new DoubleBufferedMetricBucket("request.time", Metric.Type.MAX);
+		bucket.getMetric("succeeded").track(3);
+		Assert.assertTrue(bucket.getMetric("succeeded") instanceof DoubleBufferedMetric);
+		Assert.assertEquals(3, bucket.getMetric("succeeded").getAndReset(), DELTA);
+	}
+
+	@Test
+	public void testNoUpdateLostWhileResetting() throws InterruptedException {
+		// The histogram reads and resets its buckets one at a time, so it could split an update across intervals.
+		CompositeMetric metric = (CompositeMetric) DoubleBufferedMetric.newInstance(MetricLabels.of("request.time"),
+				Metric.Type.HISTOGRAM);
+		int threads = 4;
+		int updates = 200000;
+		CountDownLatch done = new CountDownLatch(threads);
+		for (int i = 0; i < threads; i++) {
+			new Thread(() -> {
+				for (int j = 0; j < updates; j++) {
+					((Metric) metric).track(j % 1000);
+				}
+				done.countDown();
+			}).start();
+		}
+
+		while (done.getCount() > 0) {
+			metric.getAndResetSeries();
+		}
+
+		// The COUNT series is cumulative, so it must add up to every update tracked across all the intervals.
+		Assert.assertEquals(threads * updates, byType(metric.getAndResetSeries()).get(Metric.Type.COUNT).get(), DELTA);
+	}
+
+	private static Map<Metric.Type, Metric> byType(Collection<Metric> series) {
+		return series.stream().collect(Collectors.toMap(Metric::getType, Function.identity()));
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.metric;
+
+import com.adobe.aam.metrics.metric.histogram.HistogramSnapshot;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class HistogramMetricTest {
+
+	private static final double DELTA = 0;
+
+	@Test
+	public void testNewInstance() {
+		Metric metric = Metric.newInstance("request.time", Metric.Type.HISTOGRAM);
+		Assert.assertTrue(metric instanceof HistogramMetric);
+	}
+
+	@Test
+	public void testPercentilesWithinPrecision() {
+		HistogramMetric metric = new HistogramMetric(MetricLabels.of("request.time"));
+		for (int i = 1; i <= 10000; i++) {
+			metric.track(i);
+		}
+
+		HistogramSnapshot snapshot = metric.getSnapshot();
+		Assert.assertEquals(10000, snapshot.getCount());
+		Assert.assertEquals(1, snapshot.getMin(), DELTA);
+		Assert.assertEquals(10000, snapshot.getMax(), DELTA);
+		Assert.assertEquals(5000.5, snapshot.getMean(), DELTA);
+
+		// With 6 bits of precision, the relative error is at most 2^-7.
+		double error = 1.0 / 128;
+		Assert.assertEquals(5000, snapshot.getValue(0.5), 5000 * error);
+		Assert.assertEquals(9500, snapshot.getValue(0.95), 9500 * error);
+		Assert.assertEquals(9900, snapshot.getValue(0.99), 9900 * error);
+		Assert.assertEquals(9990, snapshot.getValue(0.999), 9990 * error);
+	}
+
+	@Test
+	public void testSmallAndOutOfRangeValues() {
+		HistogramMetric metric = new HistogramMetric(MetricLabels.of("request.time"), 4, 1, 1000);
+		metric.track(0);
+		metric.track(-5);
+		metric.track(0.25);
+		metric.track(1e9);
+
+		HistogramSnapshot snapshot = metric.getSnapshot();
+		Assert.assertEquals(4, snapshot.getCount());
+		Assert.assertEquals(-5, snapshot.getMin(), DELTA);
+		Assert.assertEquals(1e9, snapshot.getMax(), DELTA);
+		Assert.assertEquals(0, snapshot.getValue(0.5), DELTA);
+	}
+
+	@Test
+	public void testGetAndResetSeries() {
+		HistogramMetric metric = new HistogramMetric(MetricLabels.of("request.time"));
+		metric.track(100);
+		metric.track(200);
+		metric.track(300);
+
+		Map<Metric.Type, Metric> series = byType(metric.getAndResetSeries());
+
+		Assert.assertEquals(HistogramSnapshot.TYPES.size() + 1, series.size());
+		series.values().forEach(serie -> Assert.assertEquals("request.time", serie.getName()));
+		Assert.assertEquals(3, series.get(Metric.Type.COUNT).get(), DELTA);
+		Assert.assertEquals(100, series.get(Metric.Type.MIN).get(), DELTA);
+		Assert.assertEquals(300, series.get(Metric.Type.MAX).get(), DELTA);
+		Assert.assertEquals(200, series.get(Metric.Type.AVG).get(), DELTA);
+		Assert.assertEquals(200, series.get(Metric.Type.PERCENTILE_50).get(), 200.0 / 128);
+		Assert.assertEquals(300, series.get(Metric.Type.PERCENTILE_999).get(), DELTA);
+
+		Collection<Metric> empty = metric.getAndResetSeries();
+		empty.stream()
+				.filter(serie -> serie.getType() != Metric.Type.COUNT)
+				.forEach(serie -> Assert.assertEquals("Reset did not work properly.", 0, serie.get(), DELTA));
+	}
+
+	@Test
+	public void testCountIsCumulative() {
+		HistogramMetric metric = new HistogramMetric(MetricLabels.of("request.time"));
+		metric.track(100);
+		Metric count = byType(metric.getAndResetSeries()).get(Metric.Type.COUNT);
+		Assert.assertEquals(Metric.Type.COUNT, count.getType());
+		Assert.assertEquals(1, count.get(), DELTA);
+
+		metric.track(200);
+		metric.track(300);
+		Assert.assertSame(count, byType(metric.getAndResetSeries()).get(Metric.Type.COUNT));
+		Assert.assertEquals(3, count.get(), DELTA);
+
+		// Nothing was tracked, but the counter keeps its value.
+		Assert.assertEquals(3, byType(metric.getAndResetSeries()).get(Metric.Type.COUNT).get(), DELTA);
+	}
+
+	private static Map<Metric.Type, Metric> byType(Collection<Metric> series) {
+		return series.stream().collect(Collectors.toMap(Metric::getType, Function.identity()));
+	}
+}
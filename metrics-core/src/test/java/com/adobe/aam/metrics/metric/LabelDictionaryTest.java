@@ -0,0 +1,147 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import com.adobe.aam.metrics.metric.bucket.MetricBucketImpl;
+import com.adobe.aam.metrics.metric.bucket.SlabMetricBucket;
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class LabelDictionaryTest {
+
+	@Test
+	public void testInternSharesInstances() {
+		LabelDictionary dictionary = new LabelDictionary(16);
+		String first = dictionary.intern(new String("host-1"));
+		String second = dictionary.intern(new String("host-1"));
+
+		Assert.assertEquals("host-1", first);
+		Assert.assertSame(first, second);
+		Assert.assertEquals(1, dictionary.size());
+		Assert.assertSame(dictionary.getLabel(first), dictionary.getLabel(new String("host-1")));
+	}
+
+	@Test
+	public void testBucketsShareLabelValues() {
+		// The default dictionary is shared by the whole process (and may be full), so the buckets use their own.
+		LabelDictionary dictionary = new LabelDictionary(16);
+		MetricBucketImpl requests = new MetricBucketImpl("requests", Metric.Type.COUNT, "host")
+				.withLabelDictionary(dictionary);
+		MetricBucketImpl errors = new MetricBucketImpl("errors", Metric.Type.COUNT, "host")
+				.withLabelDictionary(dictionary);
+
+		String requestsHost = requests.getMetric(new String("host-42")).getLabels().postLabelValues().get(0);
+		String errorsHost = errors.getMetric(new String("host-42")).getLabels().postLabelValues().get(0);
+		Assert.assertSame(requestsHost, errorsHost);
+		Assert.assertSame(dictionary.intern("host-42"), requestsHost);
+	}
+
+	@Test
+	public void testSlabBucketInternsOnlyInItsDictionary() {
+		LabelDictionary dictionary = new LabelDictionary(16);
+		SlabMetricBucket requests = new SlabMetricBucket("requests", Metric.Type.COUNT, "user", dictionary);
+		requests.track(new String("alice"), 1);
+		Assert.assertEquals(1, dictionary.size());
+
+		int size = LabelDictionary.getDefault().size();
+		new SlabMetricBucket("requests", Metric.Type.COUNT, "user").track(new String("user-" + size), 1);
+		Assert.assertEquals(size, LabelDictionary.getDefault().size());
+	}
+
+	@Test
+	public void testInternLabelsKeepsNames() {
+		LabelDictionary dictionary = new LabelDictionary(16);
+		ImmutableMetricLabels parent = ImmutableMetricLabels.builder()
+				.metricName("requests")
+				.preLabelName("region")
+				.addPostLabelNames("status")
+				.build();
+		MetricLabels child = parent.withPreLabelValue(new String("us-east")).withPostLabelValues(new String("200"));
+
+		MetricLabels interned = dictionary.intern(child);
+		Assert.assertEquals(child, interned);
+		Assert.assertSame(parent.postLabelNames(), interned.postLabelNames());
+		Assert.assertSame(dictionary.intern("us-east"), interned.preLabelValue().get());
+		Assert.assertSame(dictionary.intern("200"), interned.postLabelValues().get(0));
+	}
+
+	@Test
+	public void testEncodeMatchesFormat() {
+		LabelDictionary dictionary = new LabelDictionary(16);
+		MetricLabels labels = ImmutableMetricLabels.builder()
+				.metricName("requests")
+				.preLabelName("region")
+				.preLabelValue("eu-west")
+				.addPostLabelNames("status", "method")
+				.addPostLabelValues("200", "GET", "h\u00e9llo")
+				.build();
+
+		for (char delim : new char[]{'.', '_'}) {
+			Assert.assertArrayEquals(labels.format(delim).toString().getBytes(StandardCharsets.UTF_8),
+					dictionary.encode(labels, delim));
+		}
+		Assert.assertArrayEquals("requests".getBytes(StandardCharsets.UTF_8),
+				dictionary.encode(MetricLabels.of("requests"), '.'));
+	}
+
+	@Test
+	public void testStopsInterningWhenFull() {
+		LabelDictionary dictionary = new LabelDictionary(2);
+		String hot = dictionary.intern(new String("hot"));
+		dictionary.intern(new String("cold"));
+
+		// The interned strings are kept, and the new ones are returned as they are instead of evicting them.
+		String first = new String("first");
+		Assert.assertSame(first, dictionary.intern(first));
+		Assert.assertEquals(2, dictionary.size());
+		Assert.assertSame(hot, dictionary.intern(new String("hot")));
+
+		LabelDictionary.Label notInterned = dictionary.getLabel("second");
+		Assert.assertEquals("second", notInterned.getValue());
+		Assert.assertNotSame(notInterned, dictionary.getLabel("second"));
+		MetricLabels labels = ImmutableMetricLabels.builder().metricName("first").addPostLabelValues("second").build();
+		Assert.assertArrayEquals(labels.format('.').toString().getBytes(StandardCharsets.UTF_8),
+				dictionary.encode(labels, '.'));
+	}
+
+	@Test
+	public void testConcurrentInternNeverExceedsCapacity() throws InterruptedException {
+		LabelDictionary dictionary = new LabelDictionary(100);
+		List<Thread> threads = Lists.newArrayList();
+		for (int i = 0; i < 4; i++) {
+			Thread thread = new Thread(() -> {
+				for (int j = 0; j < 1000; j++) {
+					dictionary.intern("value-" + j);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		Assert.assertEquals(100, dictionary.size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNonAsciiDelimiter() {
+		new LabelDictionary(16).encode(MetricLabels.of("requests"), '\u00e9');
+	}
+}
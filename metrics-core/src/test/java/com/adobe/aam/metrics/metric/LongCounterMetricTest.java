@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import com.adobe.aam.metrics.core.publish.ResetCounterHelperImpl;
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+
+public class LongCounterMetricTest {
+
+	private static final double DELTA = 0;
+
+	@Test
+	public void testNewInstanceIsLong() {
+		Metric metric = Metric.newInstance("requests", Metric.Type.COUNT);
+		Assert.assertTrue(metric instanceof LongCounterMetric);
+		Assert.assertEquals(Metric.Type.COUNT, metric.getType());
+	}
+
+	@Test
+	public void testExactPastDoublePrecision() {
+		LongCounterMetric metric = new LongCounterMetric(MetricLabels.of("requests"));
+		long large = 1L << 53;
+		metric.add(large);
+		metric.increment();
+		metric.increment();
+		metric.increment();
+
+		Assert.assertEquals(large + 3, metric.getLong());
+	}
+
+	@Test
+	public void testFractionalValues() {
+		LongCounterMetric metric = new LongCounterMetric(MetricLabels.of("requests"));
+		metric.track(2);
+		metric.track(0.5);
+		metric.track(-1);
+
+		Assert.assertEquals(1.5, metric.get(), DELTA);
+		Assert.assertEquals(1.5, metric.getAndReset(), DELTA);
+		Assert.assertEquals(0, metric.get(), DELTA);
+	}
+
+	@Test
+	public void testResetCounterDiffIsExact() {
+		LongCounterMetric metric = new LongCounterMetric(MetricLabels.of("requests"));
+		ResetCounterHelperImpl helper = new ResetCounterHelperImpl();
+		metric.add(1L << 54);
+		helper.resetIfCounter(metric);
+
+		metric.increment();
+		Assert.assertEquals(1, helper.resetIfCounter(metric), DELTA);
+	}
+
+	@Test
+	public void testResetCounterDoesNotRetainMetrics() {
+		LongCounterMetric metric = new LongCounterMetric(MetricLabels.of("requests"));
+		ResetCounterHelperImpl helper = new ResetCounterHelperImpl();
+		metric.increment();
+		helper.resetIfCounter(metric);
+
+		WeakReference<Metric> reference = new WeakReference<>(metric);
+		metric = null;
+		System.gc();
+		Assert.assertNull(reference.get());
+	}
+
+	@Test
+	public void testIncrementFromMultipleThreads() throws InterruptedException {
+		LongCounterMetric metric = new LongCounterMetric(MetricLabels.of("requests"));
+		int nrThreads = 4;
+		int nrUpdates = 100000;
+
+		List<Thread> threads = Lists.newArrayList();
+		for (int i = 0; i < nrThreads; i++) {
+			Thread thread = new Thread(() -> {
+				for (int j = 0; j < nrUpdates; j++) {
+					metric.increment();
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		Assert.assertEquals(nrThreads * nrUpdates, metric.getLong());
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import com.adobe.aam.metrics.clock.ManualClock;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class MeterMetricTest {
+
+	private static final double DELTA = 1e-9;
+
+	private final ManualClock clock = new ManualClock();
+
+	@Test
+	public void testNewInstance() {
+		Metric metric = Metric.newInstance("requests", Metric.Type.METER);
+		Assert.assertTrue(metric instanceof MeterMetric);
+	}
+
+	@Test
+	public void testRatesStartAtFirstObservedRate() {
+		MeterMetric meter = new MeterMetric(MetricLabels.of("requests"), clock);
+		meter.mark(600);
+		clock.advance(1, TimeUnit.MINUTES);
+
+		Map<Metric.Type, Metric> series = byType(meter.getAndResetSeries());
+		Assert.assertEquals(600, series.get(Metric.Type.COUNT).get(), DELTA);
+		Assert.assertEquals(10, series.get(Metric.Type.MEAN_RATE).get(), DELTA);
+		Assert.assertEquals(10, series.get(Metric.Type.RATE_1MIN).get(), DELTA);
+		Assert.assertEquals(10, series.get(Metric.Type.RATE_5MIN).get(), DELTA);
+		Assert.assertEquals(10, series.get(Metric.Type.RATE_15MIN).get(), DELTA);
+	}
+
+	@Test
+	public void testRatesDecayWithoutEvents() {
+		MeterMetric meter = new MeterMetric(MetricLabels.of("requests"), clock);
+		meter.mark(600);
+		clock.advance(1, TimeUnit.MINUTES);
+		meter.getAndResetSeries();
+
+		clock.advance(1, TimeUnit.MINUTES);
+		Map<Metric.Type, Metric> series = byType(meter.getAndResetSeries());
+
+		// After one window without events, a moving average keeps exp(-1) of its value.
+		Assert.assertEquals(10 * Math.exp(-1), series.get(Metric.Type.RATE_1MIN).get(), DELTA);
+		Assert.assertEquals(10 * Math.exp(-1.0 / 5), series.get(Metric.Type.RATE_5MIN).get(), DELTA);
+		Assert.assertEquals(10 * Math.exp(-1.0 / 15), series.get(Metric.Type.RATE_15MIN).get(), DELTA);
+		Assert.assertEquals(5, series.get(Metric.Type.MEAN_RATE).get(), DELTA);
+
+		// The count is cumulative, like any other counter.
+		Assert.assertEquals(600, series.get(Metric.Type.COUNT).get(), DELTA);
+	}
+
+	@Test
+	public void testSteadyRate() {
+		MeterMetric meter = new MeterMetric(MetricLabels.of("requests"), clock);
+		for (int cycle = 0; cycle < 10; cycle++) {
+			meter.mark(300);
+			clock.advance(30, TimeUnit.SECONDS);
+			Assert.assertEquals(10, meter.getAndReset(), DELTA);
+		}
+		Assert.assertEquals(3000, meter.getCount());
+	}
+
+	private static Map<Metric.Type, Metric> byType(Collection<Metric> series) {
+		return series.stream().collect(Collectors.toMap(Metric::getType, Function.identity()));
+	}
+}
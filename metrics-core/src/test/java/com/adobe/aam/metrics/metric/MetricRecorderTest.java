@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import com.adobe.aam.metrics.clock.Clock;
+import com.adobe.aam.metrics.clock.ManualClock;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class MetricRecorderTest {
+
+	private static final double DELTA = 0;
+
+	private final Clock defaultClock = Metric.getClock();
+	private final ManualClock clock = new ManualClock(1000000);
+
+	@Before
+	public void setClock() {
+		Metric.setClock(clock);
+	}
+
+	@After
+	public void restoreClock() {
+		Metric.setClock(defaultClock);
+	}
+
+	@Test
+	public void testCommit() {
+		Metric requests = Metric.newInstance("requests", Metric.Type.COUNT);
+		Metric size = Metric.newInstance("request.size", Metric.Type.AVG);
+		Metric maxSize = Metric.newInstance("request.size", Metric.Type.MAX);
+		TimerMetric time = new TimerMetric("request.time");
+
+		MetricRecorder recorder = new MetricRecorder();
+		recorder.increment(requests)
+				.increment(requests)
+				.track(size, 10)
+				.track(size, 20)
+				.track(maxSize, 10)
+				.track(maxSize, 20)
+				.record(time, 3, TimeUnit.MILLISECONDS);
+		Assert.assertEquals(5, recorder.size());
+		Assert.assertEquals(0, requests.get(), DELTA);
+
+		clock.advance(1, TimeUnit.SECONDS);
+		recorder.commit();
+		Assert.assertEquals(0, recorder.size());
+		Assert.assertEquals(2, requests.get(), DELTA);
+		Assert.assertEquals(15, size.get(), DELTA);
+		Assert.assertEquals(20, maxSize.get(), DELTA);
+		Assert.assertEquals(3, time.getSnapshot().getMax(), DELTA);
+		for (Metric metric : new Metric[]{requests, size, maxSize, time}) {
+			Assert.assertEquals(clock.time(), metric.getLastTrackTime());
+		}
+	}
+
+	@Test
+	public void testReuse() {
+		Metric requests = Metric.newInstance("requests", Metric.Type.COUNT);
+		MetricRecorder recorder = MetricRecorder.current();
+		Assert.assertSame(recorder, MetricRecorder.current());
+
+		for (int i = 0; i < 100; i++) {
+			recorder.increment(requests).track(Metric.newInstance("request.size", Metric.Type.AVG), i);
+		}
+		Assert.assertEquals(101, recorder.size());
+		recorder.clear();
+		recorder.commit();
+		Assert.assertEquals(0, requests.get(), DELTA);
+
+		recorder.increment(requests).commit();
+		Assert.assertEquals(1, requests.get(), DELTA);
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import com.adobe.aam.metrics.clock.Clock;
+import com.adobe.aam.metrics.clock.ManualClock;
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class RollingMetricTest {
+
+	private static final double DELTA = 0;
+	private static final MetricLabels LABELS = MetricLabels.of("requests");
+	private static final Duration WINDOW = Duration.ofSeconds(10);
+
+	private final Clock defaultClock = Metric.getClock();
+	private final ManualClock clock = new ManualClock(1000000);
+
+	@Before
+	public void setClock() {
+		Metric.setClock(clock);
+	}
+
+	@After
+	public void restoreClock() {
+		Metric.setClock(defaultClock);
+	}
+
+	@Test
+	public void testCounterSlides() {
+		RollingCounterMetric metric = new RollingCounterMetric(LABELS, WINDOW, 10);
+		for (int second = 0; second < 10; second++) {
+			metric.track(second);
+			clock.advance(1, TimeUnit.SECONDS);
+		}
+		Assert.assertEquals(45, metric.get(), DELTA);
+
+		// The slice of second 0 falls out of the window, and its slot is recycled.
+		metric.track(100);
+		Assert.assertEquals(45 + 100, metric.get(), DELTA);
+		Assert.assertEquals(14.5, metric.getRate(), DELTA);
+
+		clock.advance(5, TimeUnit.SECONDS);
+		Assert.assertEquals(6 + 7 + 8 + 9 + 100, metric.get(), DELTA);
+
+		clock.advance(1, TimeUnit.MINUTES);
+		Assert.assertEquals(0, metric.get(), DELTA);
+	}
+
+	@Test
+	public void testReadingDoesNotReset() {
+		RollingCounterMetric metric = new RollingCounterMetric(LABELS, WINDOW);
+		metric.increment();
+		metric.increment();
+
+		Assert.assertEquals(Metric.Type.GAUGE, metric.getType());
+		Assert.assertEquals(2, metric.getAndReset(), DELTA);
+		Assert.assertEquals(2, metric.getAndReset(), DELTA);
+	}
+
+	@Test
+	public void testAverage() {
+		RollingAverageMetric metric = new RollingAverageMetric(LABELS, WINDOW, 5);
+		metric.track(10);
+		clock.advance(4, TimeUnit.SECONDS);
+		metric.track(20);
+		metric.track(30);
+		Assert.assertEquals(20, metric.get(), DELTA);
+
+		clock.advance(7, TimeUnit.SECONDS);
+		Assert.assertEquals(25, metric.get(), DELTA);
+	}
+
+	@Test
+	public void testMinMax() {
+		RollingMinMetric min = new RollingMinMetric(LABELS, WINDOW, 10);
+		RollingMaxMetric max = new RollingMaxMetric(LABELS, WINDOW, 10);
+		Assert.assertEquals(0, min.get(), DELTA);
+		Assert.assertEquals(0, max.get(), DELTA);
+
+		for (double value : new double[]{5, 1, 9}) {
+			min.track(value);
+			max.track(value);
+			clock.advance(4, TimeUnit.SECONDS);
+		}
+		// Only the last two values are still within the window.
+		Assert.assertEquals(1, min.get(), DELTA);
+		Assert.assertEquals(9, max.get(), DELTA);
+
+		clock.advance(4, TimeUnit.SECONDS);
+		Assert.assertEquals(9, min.get(), DELTA);
+	}
+
+	@Test
+	public void testConcurrentUpdates() throws InterruptedException {
+		// The threads move the clock forward by 80 minutes in total, so several slices get recycled concurrently.
+		RollingCounterMetric metric = new RollingCounterMetric(LABELS, Duration.ofHours(2), 8);
+		int nrThreads = 4;
+		int nrUpdates = 20000;
+
+		List<Thread> threads = Lists.newArrayList();
+		for (int i = 0; i < nrThreads; i++) {
+			Thread thread = new Thread(() -> {
+				for (int j = 0; j < nrUpdates; j++) {
+					metric.increment();
+					if (j % 1000 == 0) {
+						clock.advance(1, TimeUnit.MINUTES);
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		Assert.assertEquals(nrThreads * nrUpdates, metric.get(), DELTA);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidWindow() {
+		new RollingMaxMetric(LABELS, Duration.ofMillis(5), 10);
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import com.adobe.aam.metrics.clock.Clock;
+import com.adobe.aam.metrics.clock.ManualClock;
+import com.adobe.aam.metrics.metric.bucket.MetricBucketImpl;
+import com.adobe.aam.metrics.metric.bucket.TopKMetricBucket;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+public class SeriesNameCacheTest {
+
+	private final SeriesNameCache cache = new SeriesNameCache("prod.myapp.", '.',
+			type -> type.getName().isEmpty() ? "" : "." + type.getName());
+
+	@Test
+	public void testRendersPrefixLabelsAndType() {
+		MetricBucketImpl bucket = new MetricBucketImpl("request", Metric.Type.COUNT, "region",
+				Collections.singletonList("status"));
+		Metric metric = bucket.getMetric("us-east", "200");
+
+		SeriesNameCache.SeriesName name = cache.get(metric);
+		Assert.assertEquals("prod.myapp.region.us-east.request.status.200.count", name.getName());
+
+		byte[] bytes = new byte[name.getEncodedLength()];
+		Assert.assertEquals(bytes.length, name.copyTo(bytes, 0));
+		Assert.assertArrayEquals(name.getName().getBytes(StandardCharsets.UTF_8), bytes);
+
+		Assert.assertEquals("prod.myapp.gauge", cache.get(MetricLabels.of("gauge"), Metric.Type.GAUGE).getName());
+	}
+
+	@Test
+	public void testRendersOncePerSeries() {
+		Metric metric = new MetricBucketImpl("request", Metric.Type.COUNT, "status").getMetric("200");
+
+		SeriesNameCache.SeriesName name = cache.get(metric);
+		Assert.assertSame(name, cache.get(metric));
+		Assert.assertSame(name, cache.get(metric.getLabels(), Metric.Type.COUNT));
+		Assert.assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testEqualLabelsHitTheCache() {
+		// Eg. the metrics read from a Codahale registry, whose labels are built again on each cycle.
+		SeriesNameCache.SeriesName name = cache.get(new SimpleMetric(MetricLabels.of("jvm.threads"), Metric.Type.GAUGE, 1));
+		Assert.assertSame(name, cache.get(new SimpleMetric(MetricLabels.of("jvm.threads"), Metric.Type.GAUGE, 2)));
+		Assert.assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testEvictedSeriesAreInvalidated() {
+		Clock defaultClock = Metric.getClock();
+		ManualClock clock = new ManualClock(1000000);
+		Metric.setClock(clock);
+		try {
+			MetricBucketImpl bucket = new MetricBucketImpl("request", Metric.Type.COUNT, "subdomain").withExpiry(1);
+			bucket.getMetric("crawled").track(1);
+			bucket.getMetric("www").track(1);
+			bucket.getMetrics().forEach(cache::get);
+			Assert.assertEquals(2, cache.size());
+
+			clock.advance(1, TimeUnit.MINUTES);
+			bucket.getMetric("www").track(1);
+			bucket.getMetrics();
+			clock.advance(1, TimeUnit.MINUTES);
+			bucket.getMetric("www").track(1);
+			bucket.getMetrics();
+			Assert.assertEquals(1, cache.size());
+		} finally {
+			Metric.setClock(defaultClock);
+		}
+	}
+
+	@Test
+	public void testEvictedHeavyHittersAreInvalidated() {
+		TopKMetricBucket bucket = new TopKMetricBucket("request", "subdomain", 1);
+		cache.get(bucket.getMetric("www"));
+		for (int i = 0; i < 3; i++) {
+			bucket.getMetric("api");
+		}
+
+		Assert.assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testSeriesOfCompositeMetricShareLabels() {
+		TimerMetric timer = new TimerMetric("request.time");
+		timer.record(10, TimeUnit.MILLISECONDS);
+
+		Collection<Metric> series = timer.getAndResetSeries();
+		for (Metric metric : series) {
+			Assert.assertEquals("prod.myapp.request.time." + metric.getType().getName(), cache.get(metric).getName());
+		}
+		Assert.assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testCustomRenderer() {
+		SeriesNameCache upperCase = new SeriesNameCache((labels, type) -> labels.format('_').toString().toUpperCase());
+		Assert.assertEquals("REQUEST_STATUS_200", upperCase.get(ImmutableMetricLabels.builder()
+				.metricName("request")
+				.addPostLabelNames("status")
+				.addPostLabelValues("200")
+				.build(), Metric.Type.COUNT).getName());
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.metric;
+
+import com.adobe.aam.metrics.metric.bucket.SketchMetricBucket;
+import com.adobe.aam.metrics.metric.histogram.HistogramSnapshot;
+import com.adobe.aam.metrics.metric.histogram.QuantileSketch;
+import com.adobe.aam.metrics.metric.histogram.SketchSnapshot;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class SketchMetricTest {
+
+	private static final double DELTA = 0;
+	private static final double ERROR = QuantileSketch.DEFAULT_RELATIVE_ACCURACY;
+
+	@Test
+	public void testNewInstance() {
+		Metric metric = Metric.newInstance("request.time", Metric.Type.SKETCH);
+		Assert.assertTrue(metric instanceof SketchMetric);
+	}
+
+	@Test
+	public void testPercentilesWithinRelativeAccuracy() {
+		SketchMetric metric = new SketchMetric(MetricLabels.of("request.time"));
+		for (int i = 1; i <= 10000; i++) {
+			metric.track(i);
+		}
+
+		HistogramSnapshot snapshot = metric.getSnapshot().toHistogramSnapshot();
+		Assert.assertEquals(10000, snapshot.getCount());
+		Assert.assertEquals(1, snapshot.getMin(), DELTA);
+		Assert.assertEquals(10000, snapshot.getMax(), DELTA);
+		Assert.assertEquals(5000, snapshot.getValue(0.5), 5000 * ERROR);
+		Assert.assertEquals(9900, snapshot.getValue(0.99), 9900 * ERROR);
+		Assert.assertEquals(9990, snapshot.getValue(0.999), 9990 * ERROR);
+	}
+
+	@Test
+	public void testMergedHostsGiveFleetPercentiles() {
+		// One host only sees fast requests, the other only slow ones: averaging their p99s would be meaningless.
+		SketchMetric fast = new SketchMetric(MetricLabels.of("request.time"));
+		SketchMetric slow = new SketchMetric(MetricLabels.of("request.time"));
+		for (int i = 1; i <= 9000; i++) {
+			fast.track(i % 100 + 1);
+		}
+		for (int i = 1; i <= 1000; i++) {
+			slow.track(1000 + i);
+		}
+
+		SketchSnapshot fleet = SketchSnapshot.fromByteArray(fast.getSnapshot().toByteArray())
+				.merge(SketchSnapshot.fromByteArray(slow.getSnapshot().toByteArray()));
+
+		HistogramSnapshot snapshot = fleet.toHistogramSnapshot();
+		Assert.assertEquals(10000, snapshot.getCount());
+		Assert.assertEquals(1, snapshot.getMin(), DELTA);
+		Assert.assertEquals(2000, snapshot.getMax(), DELTA);
+		Assert.assertEquals(100, snapshot.getValue(0.9), 100 * ERROR);
+		Assert.assertEquals(1900, snapshot.getValue(0.99), 1900 * ERROR);
+	}
+
+	@Test
+	public void testSerializationRoundTrip() {
+		SketchMetric metric = new SketchMetric(MetricLabels.of("request.time"));
+		metric.track(0);
+		metric.track(3);
+		metric.track(3e6);
+
+		SketchSnapshot snapshot = metric.getSnapshot();
+		SketchSnapshot copy = SketchSnapshot.fromByteArray(snapshot.toByteArray());
+		Assert.assertEquals(3, copy.getCount());
+		Assert.assertEquals(snapshot.getSum(), copy.getSum(), DELTA);
+		for (double quantile : new double[]{0.1, 0.5, 0.9}) {
+			Assert.assertEquals(snapshot.toHistogramSnapshot().getValue(quantile),
+					copy.toHistogramSnapshot().getValue(quantile), DELTA);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCannotMergeDifferentAccuracies() {
+		SketchSnapshot.empty(0.01).merge(SketchSnapshot.empty(0.02));
+	}
+
+	@Test
+	public void testRejectsMalformedSketches() throws IOException {
+		List<byte[]> malformed = Arrays.asList(
+				// More bins than bytes.
+				serialize(0.01, 0, Integer.MAX_VALUE),
+				// The span of the bins overflows an int.
+				serialize(0.01, 0, 2, Integer.MIN_VALUE, 1, Integer.MAX_VALUE, 1),
+				// The span of the bins is too wide.
+				serialize(0.01, 0, 2, 0, 1, 1 << 30, 1),
+				serialize(Double.NaN, 0, 0),
+				serialize(0, 0, 0),
+				serialize(1, 0, 0),
+				serialize(0.01, -1, 0),
+				serialize(0.01, 0, 1, 5, -1),
+				serialize(0.01, 0, 2, 5, 1, 4, 1),
+				new byte[]{1, 2, 3});
+
+		for (byte[] bytes : malformed) {
+			try {
+				SketchSnapshot.fromByteArray(bytes);
+				Assert.fail("Accepted a malformed sketch: " + Arrays.toString(bytes));
+			} catch (IllegalArgumentException expected) {
+				// The sketch is rejected.
+			}
+		}
+	}
+
+	/**
+	 * @param bins the index and count of each bin, with the number of bins first
+	 */
+	private static byte[] serialize(double relativeAccuracy, long zeroCount, int... bins) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(1);
+			out.writeDouble(relativeAccuracy);
+			out.writeLong(zeroCount);
+			out.writeDouble(0);
+			out.writeDouble(0);
+			out.writeDouble(0);
+			out.writeInt(bins[0]);
+			for (int i = 1; i + 1 < bins.length; i += 2) {
+				out.writeInt(bins[i]);
+				out.writeLong(bins[i + 1]);
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	@Test
+	public void testSeriesIncludeSketchState() {
+		SketchMetric metric = new SketchMetric(MetricLabels.of("request.time"));
+		metric.track(10);
+		metric.track(20);
+
+		Map<Metric.Type, Metric> series = byType(metric.getAndResetSeries());
+		Assert.assertEquals(2, series.get(Metric.Type.COUNT).get(), DELTA);
+		Assert.assertEquals(15, series.get(Metric.Type.AVG).get(), DELTA);
+		Assert.assertTrue(series.get(Metric.Type.SKETCH) instanceof SketchStateMetric);
+		Assert.assertEquals(2, ((SketchStateMetric) series.get(Metric.Type.SKETCH)).getSnapshot().getCount());
+
+		Assert.assertEquals(0, metric.getSnapshot().getCount());
+	}
+
+	@Test
+	public void testParentMergesChildren() {
+		SketchMetricBucket bucket = new SketchMetricBucket("request.time");
+		for (int i = 1; i <= 100; i++) {
+			bucket.getMetric("succeeded").track(i);
+		}
+		bucket.getMetric("failed").track(1000);
+
+		List<Metric> metrics = (List<Metric>) bucket.getMetrics();
+		Assert.assertSame(bucket.getParentMetric(), metrics.get(metrics.size() - 1));
+
+		Map<Metric.Type, Metric> parent = null;
+		for (Metric metric : metrics) {
+			parent = byType(((CompositeMetric) metric).getAndResetSeries());
+		}
+		Assert.assertEquals(101, parent.get(Metric.Type.COUNT).get(), DELTA);
+		Assert.assertEquals(1000, parent.get(Metric.Type.MAX).get(), DELTA);
+		Assert.assertEquals(51, parent.get(Metric.Type.PERCENTILE_50).get(), 51 * ERROR);
+
+		// The children were drained, so nothing is merged twice: the cumulative counts stay as they were.
+		Map<Metric.Type, Metric> drained = null;
+		for (Metric metric : bucket.getMetrics()) {
+			drained = byType(((CompositeMetric) metric).getAndResetSeries());
+			Assert.assertEquals(0, drained.get(Metric.Type.MAX).get(), DELTA);
+		}
+		Assert.assertEquals(101, drained.get(Metric.Type.COUNT).get(), DELTA);
+	}
+
+	private static Map<Metric.Type, Metric> byType(Collection<Metric> series) {
+		return series.stream().collect(Collectors.toMap(Metric::getType, Function.identity()));
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class StandardDeviationMetricTest {
+
+	private static final double DELTA = 1e-9;
+
+	@Test
+	public void testNewInstance() {
+		Metric metric = Metric.newInstance("request.size", Metric.Type.STANDARD_DEVIATION);
+		Assert.assertTrue(metric instanceof StandardDeviationMetric);
+	}
+
+	@Test
+	public void testSeries() {
+		StandardDeviationMetric metric = new StandardDeviationMetric(MetricLabels.of("request.size"));
+		for (double value : new double[]{2, 4, 4, 4, 5, 5, 7, 9}) {
+			metric.track(value);
+		}
+
+		Map<Metric.Type, Metric> series = byType(metric.getAndResetSeries());
+		Assert.assertEquals(5, series.get(Metric.Type.AVG).get(), DELTA);
+		Assert.assertEquals(Math.sqrt(32.0 / 7), series.get(Metric.Type.STANDARD_DEVIATION).get(), DELTA);
+		Assert.assertEquals(8, series.get(Metric.Type.COUNT).get(), DELTA);
+
+		Assert.assertEquals(0, metric.getCount());
+		Assert.assertEquals(0, metric.get(), DELTA);
+	}
+
+	@Test
+	public void testCountIsCumulative() {
+		StandardDeviationMetric metric = new StandardDeviationMetric(MetricLabels.of("request.size"));
+		metric.track(2);
+		metric.track(4);
+		Metric count = byType(metric.getAndResetSeries()).get(Metric.Type.COUNT);
+		Assert.assertEquals(2, count.get(), DELTA);
+
+		metric.track(6);
+		Map<Metric.Type, Metric> series = byType(metric.getAndResetSeries());
+		Assert.assertSame(count, series.get(Metric.Type.COUNT));
+		Assert.assertEquals(3, count.get(), DELTA);
+		Assert.assertEquals(6, series.get(Metric.Type.AVG).get(), DELTA);
+	}
+
+	@Test
+	public void testLargeOffsetKeepsPrecision() {
+		StandardDeviationMetric metric = new StandardDeviationMetric(MetricLabels.of("timestamp"));
+		for (int i = 0; i < 1000; i++) {
+			metric.track(1e9 + (i % 2 == 0 ? 1 : -1));
+		}
+
+		Assert.assertEquals(1e9, metric.getMean(), DELTA);
+		Assert.assertEquals(Math.sqrt(1000.0 / 999), metric.get(), 1e-6);
+	}
+
+	@Test
+	public void testFromMultipleThreads() throws InterruptedException {
+		StandardDeviationMetric metric = new StandardDeviationMetric(MetricLabels.of("request.size"));
+		int nrThreads = 8;
+		int nrUpdates = 10000;
+
+		List<Thread> threads = Lists.newArrayList();
+		for (int i = 0; i < nrThreads; i++) {
+			int value = i % 2 == 0 ? 100 : 300;
+			Thread thread = new Thread(() -> {
+				for (int j = 0; j < nrUpdates; j++) {
+					metric.track(value);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		long count = nrThreads * nrUpdates;
+		Assert.assertEquals(count, metric.getCount());
+		Assert.assertEquals(200, metric.getMean(), DELTA);
+		Assert.assertEquals(Math.sqrt(100.0 * 100 * count / (count - 1)), metric.getAndReset(), 1e-6);
+	}
+
+	@Test
+	public void testNoUpdateLostAcrossResets() throws InterruptedException {
+		StandardDeviationMetric metric = new StandardDeviationMetric(MetricLabels.of("request.size"));
+		int nrThreads = 4;
+		int nrUpdates = 50000;
+
+		List<Thread> threads = Lists.newArrayList();
+		for (int i = 0; i < nrThreads; i++) {
+			Thread thread = new Thread(() -> {
+				for (int j = 0; j < nrUpdates; j++) {
+					metric.track(j % 2 == 0 ? 100 : 300);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+
+		// Every interval is built from matching sums and counts, and the cumulative count loses no update.
+		while (threads.stream().anyMatch(Thread::isAlive)) {
+			double mean = byType(metric.getAndResetSeries()).get(Metric.Type.AVG).get();
+			Assert.assertTrue("Inconsistent mean: " + mean, mean == 0 || (mean >= 100 && mean <= 300));
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Metric count = byType(metric.getAndResetSeries()).get(Metric.Type.COUNT);
+		Assert.assertEquals(nrThreads * nrUpdates, count.get(), DELTA);
+	}
+
+	private static Map<Metric.Type, Metric> byType(Collection<Metric> series) {
+		return series.stream().collect(Collectors.toMap(Metric::getType, Function.identity()));
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.metric;
+
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class StripedAverageMetricTest {
+
+	private static final double DELTA = 0;
+
+	@Test
+	public void testNewInstanceIsStriped() {
+		Metric metric = Metric.newInstance("latency", Metric.Type.AVG);
+		Assert.assertTrue(metric instanceof StripedAverageMetric);
+		Assert.assertEquals(Metric.Type.AVG, metric.getType());
+	}
+
+	@Test
+	public void testAverageFromMultipleThreads() throws InterruptedException {
+		StripedAverageMetric metric = new StripedAverageMetric(MetricLabels.of("latency"));
+		int nrThreads = 8;
+		int nrUpdates = 10000;
+
+		List<Thread> threads = Lists.newArrayList();
+		for (int i = 0; i < nrThreads; i++) {
+			int value = i % 2 == 0 ? 100 : 300;
+			Thread thread = new Thread(() -> {
+				for (int j = 0; j < nrUpdates; j++) {
+					metric.track(value);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		Assert.assertEquals("Metric average is not valid.", 200, metric.getAndReset(), DELTA);
+		Assert.assertEquals("Reset did not work properly.", 0, metric.get(), DELTA);
+	}
+
+	@Test
+	public void testNoUpdateLostAcrossResets() throws InterruptedException {
+		StripedAverageMetric metric = new StripedAverageMetric(MetricLabels.of("latency"));
+		int nrThreads = 4;
+		int nrUpdates = 50000;
+
+		List<Thread> threads = Lists.newArrayList();
+		for (int i = 0; i < nrThreads; i++) {
+			Thread thread = new Thread(() -> {
+				for (int j = 0; j < nrUpdates; j++) {
+					metric.track(7);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+
+		// Every interval must be built from matching sums and counts, so the average is always the tracked value.
+		while (threads.stream().anyMatch(Thread::isAlive)) {
+			double average = metric.getAndReset();
+			Assert.assertTrue("Inconsistent average: " + average, average == 0 || average == 7);
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+	}
+}
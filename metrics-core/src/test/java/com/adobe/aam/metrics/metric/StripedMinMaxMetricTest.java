@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.metric;
+
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class StripedMinMaxMetricTest {
+
+	private static final double DELTA = 0;
+
+	@Test
+	public void testMax() {
+		Metric metric = new StripedMaxMetric(MetricLabels.of("latency"), 4);
+		Assert.assertEquals("Initial value is not the one expected.", Metric.NEGATIVE_INFINITY, metric.get(), DELTA);
+		metric.track(-200);
+		metric.track(100);
+		metric.track(0);
+		Assert.assertEquals("Metric max is not valid.", 100, metric.getAndReset(), DELTA);
+		Assert.assertEquals("Reset did not work properly.", Metric.NEGATIVE_INFINITY, metric.get(), DELTA);
+		Assert.assertEquals("Empty interval is not reported as 0.", 0, metric.getAndReset(), DELTA);
+	}
+
+	@Test
+	public void testMin() {
+		Metric metric = new StripedMinMetric(MetricLabels.of("latency"), 4);
+		Assert.assertEquals("Initial value is not the one expected.", Metric.POSITIVE_INFINITY, metric.get(), DELTA);
+		metric.track(100);
+		metric.track(-200);
+		metric.track(0);
+		Assert.assertEquals("Metric min is not valid.", -200, metric.getAndReset(), DELTA);
+		Assert.assertEquals("Reset did not work properly.", Metric.POSITIVE_INFINITY, metric.get(), DELTA);
+		Assert.assertEquals("Empty interval is not reported as 0.", 0, metric.getAndReset(), DELTA);
+	}
+
+	@Test
+	public void testNaNIsIgnored() {
+		Metric max = Metric.newInstance("latency", Metric.Type.MAX);
+		max.track(10);
+		max.track(Double.NaN);
+		Assert.assertEquals(10, max.get(), DELTA);
+
+		Metric min = Metric.newInstance("latency", Metric.Type.MIN);
+		min.track(10);
+		min.track(Double.NaN);
+		Assert.assertEquals(10, min.get(), DELTA);
+	}
+
+	@Test
+	public void testMaxFromMultipleThreads() throws InterruptedException {
+		Metric striped = new StripedMaxMetric(MetricLabels.of("latency"), 4);
+		Metric regular = Metric.newInstance("latency", Metric.Type.MAX);
+		int nrThreads = 8;
+
+		List<Thread> threads = Lists.newArrayList();
+		for (int i = 0; i < nrThreads; i++) {
+			int offset = i;
+			Thread thread = new Thread(() -> {
+				for (int j = 0; j < 10000; j++) {
+					striped.track(j * nrThreads + offset);
+					regular.track(j * nrThreads + offset);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		Assert.assertEquals(10000 * nrThreads - 1, striped.getAndReset(), DELTA);
+		Assert.assertEquals(10000 * nrThreads - 1, regular.getAndReset(), DELTA);
+	}
+}
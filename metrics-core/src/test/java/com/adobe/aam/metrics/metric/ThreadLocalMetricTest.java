@@ -0,0 +1,123 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric;
+
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class ThreadLocalMetricTest {
+
+	private static final double DELTA = 0;
+
+	@Test
+	public void testCount() {
+		Metric metric = ThreadLocalMetric.newInstance(MetricLabels.of("messages"), Metric.Type.COUNT);
+		Assert.assertEquals(Metric.Type.COUNT, metric.getType());
+
+		metric.track(1);
+		metric.track(2);
+		Assert.assertEquals(3, metric.get(), DELTA);
+		Assert.assertEquals(3, metric.getAndReset(), DELTA);
+
+		metric.track(4);
+		Assert.assertEquals(4, metric.getAndReset(), DELTA);
+		Assert.assertEquals(0, metric.get(), DELTA);
+	}
+
+	@Test
+	public void testAverage() {
+		Metric metric = ThreadLocalMetric.newInstance(MetricLabels.of("message.size"), Metric.Type.AVG);
+		metric.track(10);
+		metric.track(20);
+		Assert.assertEquals(15, metric.getAndReset(), DELTA);
+		Assert.assertEquals(0, metric.getAndReset(), DELTA);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupportedType() {
+		ThreadLocalMetric.newInstance(MetricLabels.of("message.size"), Metric.Type.MAX);
+	}
+
+	@Test
+	public void testDeadThreadsAreCollected() throws InterruptedException {
+		Metric metric = ThreadLocalMetric.newInstance(MetricLabels.of("messages"), Metric.Type.COUNT);
+		int nrThreads = 4;
+		int nrUpdates = 100000;
+
+		List<Thread> threads = Lists.newArrayList();
+		for (int i = 0; i < nrThreads; i++) {
+			Thread thread = new Thread(() -> {
+				for (int j = 0; j < nrUpdates; j++) {
+					metric.track(1);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+
+		double total = 0;
+		for (Thread thread : threads) {
+			total += metric.getAndReset();
+			thread.join();
+		}
+
+		// The threads are dead: a read keeps their values until the next reset.
+		Assert.assertEquals(nrThreads * nrUpdates - total, metric.get(), DELTA);
+		total += metric.getAndReset();
+		Assert.assertEquals(nrThreads * nrUpdates, total, DELTA);
+		Assert.assertEquals(0, metric.getAndReset(), DELTA);
+	}
+
+	@Test
+	public void testLastTrackTimeIsKeptPerThread() throws InterruptedException {
+		ThreadLocalMetric metric = ThreadLocalMetric.newInstance(MetricLabels.of("messages"), Metric.Type.COUNT);
+		metric.track(1, 1000);
+		Thread writer = new Thread(() -> metric.track(1, 2000));
+		writer.start();
+		writer.join();
+
+		// Recording never writes the time into the shared metric, only into the accumulator of its thread.
+		Assert.assertEquals(0, metric.lastTrack);
+		Assert.assertEquals(2000, metric.getLastTrackTime());
+
+		// The writer is dead, so its accumulator is dropped, but not its track time.
+		Assert.assertEquals(2, metric.getAndReset(), DELTA);
+		metric.track(1, 1500);
+		Assert.assertEquals(2000, metric.getLastTrackTime());
+	}
+
+	@Test
+	public void testCollectWhileRecording() throws InterruptedException {
+		Metric metric = ThreadLocalMetric.newInstance(MetricLabels.of("message.size"), Metric.Type.AVG);
+		CountDownLatch done = new CountDownLatch(1);
+		Thread writer = new Thread(() -> {
+			for (int j = 0; j < 1000000; j++) {
+				metric.track(7);
+			}
+			done.countDown();
+		});
+		writer.start();
+
+		while (done.getCount() > 0) {
+			double average = metric.getAndReset();
+			Assert.assertTrue("Average " + average, average == 0 || average == 7);
+		}
+		writer.join();
+	}
+}
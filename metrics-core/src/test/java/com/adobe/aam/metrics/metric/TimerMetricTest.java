@@ -0,0 +1,165 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.metric;
+
+import com.adobe.aam.metrics.clock.ManualClock;
+import com.adobe.aam.metrics.metric.histogram.HistogramSnapshot;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class TimerMetricTest {
+
+	private static final double DELTA = 0;
+
+	private final ManualClock clock = new ManualClock();
+
+	@Test
+	public void testNewInstance() {
+		Metric metric = Metric.newInstance("request.time", Metric.Type.TIMER);
+		Assert.assertTrue(metric instanceof TimerMetric);
+	}
+
+	@Test
+	public void testContextRecordsElapsedTime() {
+		TimerMetric timer = new TimerMetric(MetricLabels.of("request.time"), TimeUnit.MILLISECONDS, clock);
+
+		try (TimerMetric.Context ignored = timer.time()) {
+			clock.advance(1500, TimeUnit.MICROSECONDS);
+		}
+
+		HistogramSnapshot snapshot = timer.getSnapshot();
+		Assert.assertEquals(1, snapshot.getCount());
+		Assert.assertEquals(1.5, snapshot.getMax(), DELTA);
+	}
+
+	@Test
+	public void testNestedContexts() {
+		TimerMetric timer = new TimerMetric(MetricLabels.of("request.time"), TimeUnit.MILLISECONDS, clock);
+
+		try (TimerMetric.Context outer = timer.time()) {
+			clock.advance(1, TimeUnit.MILLISECONDS);
+			for (int i = 0; i < 10; i++) {
+				try (TimerMetric.Context inner = timer.time()) {
+					clock.advance(2, TimeUnit.MILLISECONDS);
+				}
+			}
+		}
+
+		HistogramSnapshot snapshot = timer.getSnapshot();
+		Assert.assertEquals(11, snapshot.getCount());
+		Assert.assertEquals(2, snapshot.getMin(), DELTA);
+		Assert.assertEquals(21, snapshot.getMax(), DELTA);
+	}
+
+	@Test
+	public void testNestedContextsOfDifferentTimers() {
+		TimerMetric outer = new TimerMetric(MetricLabels.of("request.time"), TimeUnit.MILLISECONDS, clock);
+		TimerMetric inner = new TimerMetric(MetricLabels.of("query.time"), TimeUnit.MILLISECONDS, clock);
+
+		try (TimerMetric.Context ignored = outer.time()) {
+			clock.advance(1, TimeUnit.MILLISECONDS);
+			try (TimerMetric.Context alsoIgnored = inner.time()) {
+				clock.advance(2, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		Assert.assertEquals(3, outer.getSnapshot().getMax(), DELTA);
+		Assert.assertEquals(2, inner.getSnapshot().getMax(), DELTA);
+	}
+
+	@Test
+	public void testThreadDoesNotRetainStoppedTimers() {
+		TimerMetric timer = new TimerMetric(MetricLabels.of("request.time"), TimeUnit.MILLISECONDS, clock);
+		timer.time().close();
+
+		WeakReference<TimerMetric> reference = new WeakReference<>(timer);
+		timer = null;
+		System.gc();
+		Assert.assertNull(reference.get());
+	}
+
+	@Test
+	public void testStartStop() {
+		TimerMetric timer = new TimerMetric(MetricLabels.of("request.time"), TimeUnit.MICROSECONDS, clock);
+
+		long start = timer.start();
+		clock.advance(250, TimeUnit.NANOSECONDS);
+		Assert.assertEquals(250, timer.stop(start));
+		timer.record(3, TimeUnit.MILLISECONDS);
+
+		HistogramSnapshot snapshot = timer.getSnapshot();
+		Assert.assertEquals(0.25, snapshot.getMin(), DELTA);
+		Assert.assertEquals(3000, snapshot.getMax(), DELTA);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testStopWithoutStart() {
+		TimerMetric timer = new TimerMetric(MetricLabels.of("request.time"), TimeUnit.MILLISECONDS, clock);
+		TimerMetric.Context context = timer.time();
+		context.close();
+		context.close();
+	}
+
+	@Test
+	public void testSeries() {
+		TimerMetric timer = new TimerMetric(MetricLabels.of("request.time"), TimeUnit.MILLISECONDS, clock);
+		timer.record(10, TimeUnit.MILLISECONDS);
+		timer.record(30, TimeUnit.MILLISECONDS);
+
+		Map<Metric.Type, Metric> series = byType(timer.getAndResetSeries());
+		Assert.assertEquals(2, series.get(Metric.Type.COUNT).get(), DELTA);
+		Assert.assertEquals(20, series.get(Metric.Type.AVG).get(), DELTA);
+		Assert.assertEquals(30, series.get(Metric.Type.PERCENTILE_99).get(), DELTA);
+		Assert.assertEquals(0, timer.getSnapshot().getCount());
+	}
+
+	@Test
+	public void testNoAllocationOnceWarmedUp() {
+		Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+		TimerMetric timer = new TimerMetric("request.time");
+		timeMany(timer, 100000);
+
+		long threadId = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(threadId);
+		timeMany(timer, 100000);
+		long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+		// Leave some room for the measurement itself.
+		Assert.assertTrue("Allocated " + allocated + " bytes.", allocated < 1024);
+	}
+
+	private static void timeMany(TimerMetric timer, int times) {
+		for (int i = 0; i < times; i++) {
+			try (TimerMetric.Context ignored = timer.time()) {
+				timer.time().close();
+			}
+		}
+	}
+
+	private static Map<Metric.Type, Metric> byType(Collection<Metric> series) {
+		return series.stream().collect(Collectors.toMap(Metric::getType, Function.identity()));
+	}
+}
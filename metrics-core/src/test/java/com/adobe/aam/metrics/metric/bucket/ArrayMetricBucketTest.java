@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric.bucket;
+
+import com.adobe.aam.metrics.metric.Metric;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class ArrayMetricBucketTest {
+
+    private static final double DELTA = 0;
+
+    private enum Outcome {
+        SUCCEEDED, FAILED
+    }
+
+    @Test
+    public void testEnumBucket() {
+        EnumMetricBucket<Outcome> bucket = new EnumMetricBucket<>("request", Metric.Type.COUNT, "outcome",
+                Outcome.class);
+
+        bucket.getMetric(Outcome.SUCCEEDED).track(1);
+        bucket.getMetric((Object) Outcome.SUCCEEDED).track(1);
+        bucket.getMetric("FAILED").track(1);
+
+        Assert.assertEquals(2, bucket.getMetric(Outcome.SUCCEEDED).get(), DELTA);
+        Assert.assertEquals(1, bucket.getMetric(Outcome.FAILED).get(), DELTA);
+        Assert.assertEquals(Arrays.asList("FAILED"),
+                bucket.getMetric(Outcome.FAILED).getLabels().postLabelValues());
+
+        List<Metric> metrics = (List<Metric>) bucket.getMetrics();
+        Assert.assertEquals(3, metrics.size());
+        Assert.assertSame(bucket.getParentMetric(), metrics.get(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEnumBucketRejectsUnknownName() {
+        new EnumMetricBucket<>("request", Metric.Type.COUNT, Outcome.class).getMetric("UNKNOWN");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIntRangeBucketRejectsWideRange() {
+        new IntRangeMetricBucket("user", Metric.Type.COUNT, "id", 0, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testIntRangeBucketMaxRange() {
+        IntRangeMetricBucket bucket = new IntRangeMetricBucket("port", Metric.Type.COUNT, "number", 0,
+                IntRangeMetricBucket.MAX_RANGE - 1);
+        Assert.assertSame(bucket.getOverflowMetric(), bucket.getMetric(IntRangeMetricBucket.MAX_RANGE));
+    }
+
+    @Test
+    public void testIntRangeBucket() {
+        IntRangeMetricBucket bucket = new IntRangeMetricBucket("response", Metric.Type.COUNT, "status", 100, 599);
+
+        bucket.getMetric(200).track(1);
+        bucket.getMetric((Object) 200).track(1);
+        bucket.getMetric(200L).track(1);
+        bucket.getMetric("200").track(1);
+        bucket.getMetric(99).track(1);
+        bucket.getMetric(600L).track(1);
+        bucket.getMetric("unknown").track(1);
+
+        Assert.assertEquals(4, bucket.getMetric(200).get(), DELTA);
+        Assert.assertEquals(Arrays.asList("200"), bucket.getMetric(200).getLabels().postLabelValues());
+        Assert.assertEquals(3, bucket.getOverflowMetric().get(), DELTA);
+        Assert.assertEquals(Arrays.asList(MetricBucketImpl.OVERFLOW),
+                bucket.getOverflowMetric().getLabels().postLabelValues());
+        Assert.assertEquals(3, bucket.getMetrics().size());
+    }
+
+    @Test
+    public void testOnlyUsedChildrenAreReported() {
+        IntRangeMetricBucket bucket = new IntRangeMetricBucket("response", Metric.Type.COUNT, "status", 100, 599);
+        Assert.assertEquals(Arrays.asList(bucket.getParentMetric()), bucket.getMetrics());
+
+        bucket.getMetric(404).track(1);
+        bucket.getMetric(200).track(1);
+        Assert.assertEquals(Arrays.asList(bucket.getMetric(200), bucket.getMetric(404), bucket.getParentMetric()),
+                bucket.getMetrics());
+
+        // A child stays reported once it was used.
+        Assert.assertSame(bucket.getMetrics(), bucket.getMetrics());
+        Assert.assertEquals(3, bucket.getMetrics().size());
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric.bucket;
+
+import com.adobe.aam.metrics.clock.Clock;
+import com.adobe.aam.metrics.clock.ManualClock;
+import com.adobe.aam.metrics.metric.Metric;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+public class MetricBucketImplTest {
+
+    private static final double DELTA = 0;
+
+    private final Clock defaultClock = Metric.getClock();
+    private final ManualClock clock = new ManualClock(1000000);
+
+    @Before
+    public void setClock() {
+        Metric.setClock(clock);
+    }
+
+    @After
+    public void restoreClock() {
+        Metric.setClock(defaultClock);
+    }
+
+    @Test
+    public void testRawValuesResolveToTheSameChild() {
+        MetricBucketImpl bucket = new MetricBucketImpl("request", Metric.Type.COUNT, "status");
+
+        Metric child = bucket.getMetric(200);
+        Assert.assertSame(child, bucket.getMetric(200));
+        Assert.assertSame(child, bucket.getMetric("200"));
+        Assert.assertSame(child, bucket.getMetric(200L));
+        Assert.assertSame(child, bucket.bind(new StringBuilder("200")));
+        Assert.assertEquals(Arrays.asList("200"), child.getLabels().postLabelValues());
+        Assert.assertEquals(1, bucket.getMetrics().size());
+    }
+
+    @Test
+    public void testPrefixAndSuffixes() {
+        MetricBucketImpl bucket = new MetricBucketImpl("request", Metric.Type.COUNT, "region",
+                Arrays.asList("status", "method"));
+
+        Metric child = bucket.bind("us-east", 200, "GET");
+        child.track(1);
+        bucket.getMetric("us-east", "200", "GET").track(2);
+
+        Assert.assertSame(child, bucket.getMetric("us-east", 200, "GET"));
+        Assert.assertNotSame(child, bucket.getMetric("us-east", 200, "POST"));
+        Assert.assertNotSame(child, bucket.getMetric("us-east", 200));
+        Assert.assertEquals(3, child.get(), DELTA);
+    }
+
+    @Test
+    public void testParent() {
+        MetricBucketImpl bucket = new MetricBucketImpl("request", Metric.Type.COUNT);
+        Assert.assertSame(bucket.getParentMetric(), bucket.getParentMetric());
+        Assert.assertEquals("request", bucket.getParentMetric().getName());
+        Assert.assertNotSame(bucket.getParentMetric(), bucket.getMetricWithPrefix("us-east"));
+    }
+
+    @Test
+    public void testCardinalityLimit() {
+        MetricBucketImpl bucket = new MetricBucketImpl("request", Metric.Type.COUNT, "id")
+                .withCardinalityLimit(2);
+
+        Metric first = bucket.getMetric("1");
+        Metric second = bucket.getMetric("2");
+        Metric overflow = bucket.getMetric("3");
+        Assert.assertSame(overflow, bucket.getOverflowMetric());
+        Assert.assertSame(overflow, bucket.getMetric("4"));
+        Assert.assertSame(first, bucket.getMetric("1"));
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(Arrays.asList(MetricBucketImpl.OVERFLOW), overflow.getLabels().postLabelValues());
+
+        // The parent and the overflow child are not counted.
+        bucket.getParentMetric();
+        Assert.assertEquals(4, bucket.getMetrics().size());
+        Assert.assertEquals(2, bucket.getRejectedCount());
+    }
+
+    @Test
+    public void testSharedCardinalityLimiter() {
+        CardinalityLimiter limiter = new CardinalityLimiter(3);
+        MetricBucketImpl requests = new MetricBucketImpl("request", Metric.Type.COUNT, "id")
+                .withCardinalityLimit(2)
+                .withCardinalityLimiter(limiter);
+        MetricBucketImpl errors = new MetricBucketImpl("error", Metric.Type.COUNT, "id")
+                .withCardinalityLimiter(limiter);
+
+        for (int i = 0; i < 10; i++) {
+            requests.getMetric(i).track(1);
+            errors.getMetric(i).track(1);
+        }
+
+        Assert.assertEquals(3, limiter.getSeries());
+        Assert.assertEquals(8, requests.getOverflowMetric().get(), DELTA);
+        Assert.assertEquals(9, errors.getOverflowMetric().get(), DELTA);
+        Assert.assertEquals(9, errors.getRejectedCount());
+    }
+
+    @Test
+    public void testEvictedChildKeptUntilDrained() {
+        MetricBucketImpl bucket = new MetricBucketImpl("request", Metric.Type.COUNT, "subdomain").withExpiry(1);
+        Metric handle = bucket.bind("crawled");
+        handle.track(1);
+        clock.advance(1, TimeUnit.MINUTES);
+        bucket.getMetrics();
+        clock.advance(1, TimeUnit.MINUTES);
+        Assert.assertTrue(bucket.getMetrics().isEmpty());
+
+        // Tracked through the handle kept before the eviction, which is then dropped.
+        handle.track(1);
+        handle = null;
+        System.gc();
+        clock.advance(1, TimeUnit.MINUTES);
+
+        Collection<Metric> metrics = bucket.getMetrics();
+        Assert.assertEquals(1, metrics.size());
+        Assert.assertEquals(2, metrics.iterator().next().get(), DELTA);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCardinalityLimitSetAfterChildren() {
+        MetricBucketImpl bucket = new MetricBucketImpl("request", Metric.Type.COUNT, "path");
+        bucket.getParentMetric();
+        bucket.getMetric("/index");
+        bucket.withCardinalityLimit(2);
+    }
+
+    @Test
+    public void testLimiterNeverReleasesBelowZero() {
+        CardinalityLimiter limiter = new CardinalityLimiter(1);
+        limiter.release();
+        Assert.assertEquals(0, limiter.getSeries());
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    public void testExpiry() {
+        MetricBucketImpl bucket = new MetricBucketImpl("request", Metric.Type.COUNT, "subdomain")
+                .withExpiry(2)
+                .withCardinalityLimit(2);
+        Metric active = bucket.getMetric("www");
+        Metric idle = bucket.bind("crawled");
+        active.track(1);
+        idle.track(1);
+
+        for (int i = 0; i < 3; i++) {
+            clock.advance(1, TimeUnit.MINUTES);
+            active.track(1);
+            clock.advance(1, TimeUnit.MINUTES);
+            bucket.getMetrics();
+        }
+        Assert.assertTrue(bucket.getMetrics().contains(active));
+        Assert.assertFalse(bucket.getMetrics().contains(idle));
+
+        // The evicted child no longer counts in the limit, and is brought back when tracked through its handle.
+        Metric other = bucket.getMetric("other");
+        Assert.assertNotSame(bucket.getOverflowMetric(), other);
+        idle.track(1);
+        clock.advance(1, TimeUnit.MINUTES);
+        Assert.assertTrue(bucket.getMetrics().contains(idle));
+        Assert.assertEquals(2, idle.get(), DELTA);
+        Assert.assertSame(idle, bucket.getMetric("crawled"));
+    }
+
+    @Test
+    public void testLookupRestoresEvictedChild() {
+        MetricBucketImpl bucket = new MetricBucketImpl("request", Metric.Type.COUNT, "subdomain")
+                .withExpiry(1);
+        Metric child = bucket.getMetric(1);
+        child.track(1);
+
+        clock.advance(1, TimeUnit.MINUTES);
+        bucket.getMetrics();
+        clock.advance(1, TimeUnit.MINUTES);
+        Assert.assertFalse(bucket.getMetrics().contains(child));
+
+        Assert.assertSame(child, bucket.getMetric(1));
+        child.track(1);
+        Assert.assertTrue(bucket.getMetrics().contains(child));
+        Assert.assertEquals(2, child.get(), DELTA);
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric.bucket;
+
+import com.adobe.aam.metrics.core.publish.MetricSnapshot;
+import com.adobe.aam.metrics.core.publish.ResetCounterHelperImpl;
+import com.adobe.aam.metrics.metric.Metric;
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class SlabMetricBucketTest {
+
+    private static final double DELTA = 0;
+
+    @Test
+    public void testCount() {
+        SlabMetricBucket bucket = new SlabMetricBucket("request", Metric.Type.COUNT, "user");
+        int series = bucket.seriesId("alice");
+        bucket.trackSeries(series, 1);
+        bucket.track("alice", 2);
+        bucket.getMetric("alice").track(0.5);
+        bucket.track("bob", 1);
+
+        Assert.assertEquals(series, bucket.seriesId("alice"));
+        Assert.assertEquals(2, bucket.size());
+        Metric alice = bucket.getMetric("alice");
+        Assert.assertEquals(3.5, alice.get(), DELTA);
+        Assert.assertEquals(Arrays.asList("alice"), alice.getLabels().postLabelValues());
+        Assert.assertEquals(Metric.Type.COUNT, alice.getType());
+        Assert.assertTrue(alice.getLastTrackTime() > 0);
+        Assert.assertEquals(3.5, alice.getAndReset(), DELTA);
+        Assert.assertEquals(0, alice.get(), DELTA);
+    }
+
+    @Test
+    public void testAverageMinMax() {
+        SlabMetricBucket average = new SlabMetricBucket("request.size", Metric.Type.AVG, "user");
+        SlabMetricBucket min = new SlabMetricBucket("request.size", Metric.Type.MIN, "user");
+        SlabMetricBucket max = new SlabMetricBucket("request.size", Metric.Type.MAX, "user");
+        for (SlabMetricBucket bucket : Arrays.asList(average, min, max)) {
+            Assert.assertEquals(0, bucket.getMetric("alice").get(), DELTA);
+            bucket.track("alice", 10);
+            bucket.track("alice", -20);
+        }
+
+        Assert.assertEquals(-5, average.getMetric("alice").getAndReset(), DELTA);
+        Assert.assertEquals(-20, min.getMetric("alice").getAndReset(), DELTA);
+        Assert.assertEquals(10, max.getMetric("alice").getAndReset(), DELTA);
+        Assert.assertEquals(0, max.getMetric("alice").get(), DELTA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedType() {
+        new SlabMetricBucket("request.time", Metric.Type.HISTOGRAM, "user");
+    }
+
+    @Test
+    public void testManySeries() {
+        SlabMetricBucket bucket = new SlabMetricBucket("request", Metric.Type.COUNT, "user");
+        int nrSeries = 100000;
+        for (int i = 0; i < nrSeries; i++) {
+            bucket.track(i, i);
+        }
+
+        List<Metric> metrics = Lists.newArrayList(bucket.getMetrics());
+        Assert.assertEquals(nrSeries + 1, metrics.size());
+        Assert.assertSame(bucket.getParentMetric(), metrics.get(nrSeries));
+        for (int i = 0; i < nrSeries; i++) {
+            Assert.assertEquals(i, metrics.get(i).get(), DELTA);
+            Assert.assertEquals(String.valueOf(i), metrics.get(i).getLabels().postLabelValues().get(0));
+        }
+    }
+
+    @Test
+    public void testViewsOfTheSameSeriesAreEqual() {
+        SlabMetricBucket bucket = new SlabMetricBucket("request", Metric.Type.COUNT, "user");
+        bucket.track("alice", 5);
+        Assert.assertEquals(bucket.getMetric("alice"), bucket.getMetrics().iterator().next());
+        Assert.assertEquals(bucket.getMetric("alice").hashCode(), bucket.getMetrics().iterator().next().hashCode());
+    }
+
+    @Test
+    public void testCollectCountsWithTheirIncrement() {
+        SlabMetricBucket bucket = new SlabMetricBucket("request", Metric.Type.COUNT, "user");
+        ResetCounterHelperImpl helper = new ResetCounterHelperImpl();
+        bucket.track("alice", 5);
+        bucket.track("bob", 1.5);
+        collect(bucket);
+
+        bucket.track("alice", 2);
+        MetricSnapshot snapshot = collect(bucket);
+        Assert.assertEquals(2, snapshot.size());
+        Assert.assertEquals(Arrays.asList("alice"), snapshot.getLabels(0).postLabelValues());
+        Assert.assertEquals(Metric.Type.COUNT, snapshot.getType(0));
+        Assert.assertTrue(snapshot.getLastTrackTime(0) > 0);
+        // The counters stay cumulative, and carry what was counted since the previous collection.
+        Assert.assertEquals(7, snapshot.getValue(0), DELTA);
+        Assert.assertEquals(2, snapshot.getIncrement(0), DELTA);
+        Assert.assertEquals(1.5, snapshot.getValue(1), DELTA);
+        Assert.assertEquals(0, snapshot.getIncrement(1), DELTA);
+        Assert.assertEquals(2, helper.resetIfCounter(snapshot.getMetric(0)), DELTA);
+        Assert.assertEquals(7, bucket.getMetric("alice").get(), DELTA);
+    }
+
+    @Test
+    public void testCollectResetsAverages() {
+        SlabMetricBucket bucket = new SlabMetricBucket("request.size", Metric.Type.AVG, "user");
+        bucket.track("alice", 10);
+        bucket.track("alice", 20);
+
+        MetricSnapshot snapshot = collect(bucket);
+        Assert.assertEquals(1, snapshot.size());
+        Assert.assertEquals(Metric.Type.AVG, snapshot.getType(0));
+        Assert.assertEquals(15, snapshot.getValue(0), DELTA);
+        Assert.assertTrue(Double.isNaN(snapshot.getIncrement(0)));
+        Assert.assertEquals(0, bucket.getMetric("alice").get(), DELTA);
+    }
+
+    private static MetricSnapshot collect(SlabMetricBucket bucket) {
+        MetricSnapshot.Builder snapshot = MetricSnapshot.builder(bucket.size());
+        bucket.collect(snapshot);
+        return snapshot.build(Metric.getClock().time());
+    }
+
+    @Test
+    public void testConcurrentSeriesCreation() throws InterruptedException {
+        SlabMetricBucket bucket = new SlabMetricBucket("request", Metric.Type.COUNT, "user");
+        int nrThreads = 4;
+        int nrSeries = 50000;
+
+        List<Thread> threads = Lists.newArrayList();
+        for (int i = 0; i < nrThreads; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < nrSeries; j++) {
+                    bucket.track(j, 1);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(nrSeries, bucket.size());
+        for (int j = 0; j < nrSeries; j += 997) {
+            Assert.assertEquals(nrThreads, bucket.getMetric(j).get(), DELTA);
+        }
+    }
+}
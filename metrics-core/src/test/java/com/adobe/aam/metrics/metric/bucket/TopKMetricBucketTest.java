@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.metric.bucket;
+
+import com.adobe.aam.metrics.metric.CounterMetric;
+import com.adobe.aam.metrics.metric.Metric;
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public class TopKMetricBucketTest {
+
+    private static final double DELTA = 0;
+
+    @Test
+    public void testKeepsHeavyHitters() {
+        TopKMetricBucket bucket = new TopKMetricBucket("request", "subdomain", 3);
+        Random random = new Random(42);
+        int total = 0;
+        int heavy0Count = 0;
+        for (int i = 0; i < 100000; i++) {
+            // Three heavy hitters take 60% of the traffic, the rest is a long tail of one-off values.
+            int pick = random.nextInt(10);
+            String subdomain = pick < 3 ? "heavy" + pick : pick < 6 ? "tail" + random.nextInt(1000000) : "heavy0";
+            ((CounterMetric) bucket.getMetric(subdomain)).increment();
+            total++;
+            heavy0Count += "heavy0".equals(subdomain) ? 1 : 0;
+        }
+
+        List<Metric> metrics = Lists.newArrayList(bucket.getMetrics());
+        Assert.assertEquals(3 + 2, metrics.size());
+        Assert.assertEquals(Lists.newArrayList("heavy0", "heavy1", "heavy2"), metrics.subList(0, 3).stream()
+                .map(metric -> metric.getLabels().postLabelValues().get(0))
+                .collect(Collectors.toList()));
+
+        TopKMetricBucket.Entry heavy0 = (TopKMetricBucket.Entry) metrics.get(0);
+        Assert.assertTrue(heavy0.get() <= heavy0Count && heavy0Count <= heavy0.get() + heavy0.getError());
+
+        // The counts of the evicted children were reported before their eviction, and are not moved to "other".
+        double sum = metrics.subList(0, 4).stream().mapToDouble(Metric::get).sum();
+        Assert.assertTrue("Children must not count more than the total.", sum <= total);
+    }
+
+    @Test
+    public void testOtherChild() {
+        TopKMetricBucket bucket = new TopKMetricBucket("request", "subdomain", 2);
+        bucket.getMetric("www").track(1);
+        bucket.getMetric("api").track(1);
+
+        Metric other = bucket.getMetric("cdn");
+        Assert.assertEquals(Lists.newArrayList(TopKMetricBucket.OTHER), other.getLabels().postLabelValues());
+        Assert.assertSame(other, bucket.getMetric(TopKMetricBucket.OTHER));
+        Assert.assertEquals(Metric.Type.COUNT, other.getType());
+    }
+
+    @Test
+    public void testEvictedChildOnlyMovesLaterUpdatesToOther() {
+        TopKMetricBucket bucket = new TopKMetricBucket("request", "subdomain", 1);
+        CounterMetric www = (CounterMetric) bucket.getMetric("www");
+        www.add(5);
+        for (int i = 0; i < 10; i++) {
+            ((CounterMetric) bucket.getMetric("api")).increment();
+        }
+
+        List<Metric> metrics = Lists.newArrayList(bucket.getMetrics());
+        Assert.assertEquals(Lists.newArrayList("api"), metrics.get(0).getLabels().postLabelValues());
+
+        // The first access to "api" went to "other", and its count so far stays with the evicted child.
+        Assert.assertEquals(9, metrics.get(0).get(), DELTA);
+        Assert.assertEquals(1, metrics.get(1).get(), DELTA);
+        Assert.assertEquals(5, www.get(), DELTA);
+
+        // The stale reference to the evicted child keeps counting, into "other".
+        www.add(2);
+        Assert.assertEquals(3, metrics.get(1).get(), DELTA);
+        Assert.assertEquals(5, www.get(), DELTA);
+    }
+
+    @Test
+    public void testConcurrentUpdatesAreNotLost() throws InterruptedException {
+        TopKMetricBucket bucket = new TopKMetricBucket("request", "subdomain", 10);
+        int nrThreads = 4;
+        int nrUpdates = 50000;
+
+        List<Thread> threads = Lists.newArrayList();
+        for (int i = 0; i < nrThreads; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < nrUpdates; j++) {
+                    ((CounterMetric) bucket.getMetric("subdomain" + (j % 5))).increment();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        double sum = bucket.getMetrics().stream()
+                .filter(metric -> metric != bucket.getParentMetric())
+                .mapToDouble(Metric::get)
+                .sum();
+        Assert.assertEquals(nrThreads * nrUpdates, sum, DELTA);
+    }
+}
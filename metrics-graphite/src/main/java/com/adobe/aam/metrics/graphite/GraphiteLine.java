@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.graphite;
+
+import com.adobe.aam.metrics.metric.SeriesNameCache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Encodes the plaintext lines of the Graphite protocol ("name value timestamp\n") into a reusable byte buffer, from
+ * the cached bytes of the series names, so that no string is built for each metric.
+ */
+class GraphiteLine {
+
+    // Above this magnitude, the value times 100 can't be rounded to a long exactly.
+    private static final double MAX_FAST_VALUE = 1e15;
+    // How close to a tie (x.xx5) the value times 100 must be to be formatted by String.format: it rounds the shortest
+    // decimal representation of the value (1.005 is "1.01"), which can differ from the binary value near a tie.
+    private static final double TIE_WINDOW = 1e-3;
+    private static final int TIE_WINDOW_ULPS = 64;
+
+    private byte[] buffer = new byte[256];
+    private int length;
+
+    /**
+     * Encodes the line of a value, with 2 decimals like "%2.2f" (but always with a dot as the decimal separator).
+     *
+     * @return this line, whose bytes are valid until the next call
+     */
+    GraphiteLine encode(SeriesNameCache.SeriesName name, double value, long timestamp) {
+        length = 0;
+        ensureCapacity(name.getEncodedLength() + 64);
+        length = name.copyTo(buffer, length);
+        buffer[length++] = ' ';
+        appendValue(value);
+        buffer[length++] = ' ';
+        appendLong(timestamp);
+        buffer[length++] = '\n';
+        return this;
+    }
+
+    byte[] getBytes() {
+        return buffer;
+    }
+
+    int getLength() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void appendValue(double value) {
+        double cents = Math.abs(value) * 100;
+        double fraction = cents - Math.floor(cents);
+        if (!(Math.abs(value) < MAX_FAST_VALUE)
+                || Math.abs(fraction - 0.5) < Math.max(TIE_WINDOW, TIE_WINDOW_ULPS * Math.ulp(cents))) {
+            byte[] formatted = String.format(Locale.ROOT, "%2.2f", value).getBytes(StandardCharsets.US_ASCII);
+            ensureCapacity(length + formatted.length + 32);
+            System.arraycopy(formatted, 0, buffer, length, formatted.length);
+            length += formatted.length;
+            return;
+        }
+
+        // The sign bit, so that -0.0 and the negative values rounded to 0 are written as -0.00 like String.format.
+        if (Double.doubleToRawLongBits(value) < 0) {
+            buffer[length++] = '-';
+        }
+        long rounded = Math.round(cents);
+        appendLong(rounded / 100);
+        buffer[length++] = '.';
+        buffer[length++] = (byte) ('0' + rounded / 10 % 10);
+        buffer[length++] = (byte) ('0' + rounded % 10);
+    }
+
+    private void appendLong(long value) {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                byte[] digits = Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+                System.arraycopy(digits, 0, buffer, length, digits.length);
+                length += digits.length;
+                return;
+            }
+            buffer[length++] = '-';
+            value = -value;
+        }
+
+        int start = length;
+        do {
+            buffer[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+
+        // The digits were written from the least significant one.
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            byte digit = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = digit;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (buffer.length < capacity) {
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, 2 * buffer.length));
+        }
+    }
+}
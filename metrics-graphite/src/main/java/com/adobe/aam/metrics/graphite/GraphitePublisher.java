@@ -15,8 +15,9 @@ package com.adobe.aam.metrics.graphite;
 
 import com.adobe.aam.metrics.core.config.PublisherConfig;
 import com.adobe.aam.metrics.core.publish.AbstractPublisher;
+import com.adobe.aam.metrics.core.publish.MetricSnapshot;
 import com.adobe.aam.metrics.metric.Metric;
-import com.adobe.aam.metrics.metric.MetricLabels;
+import com.adobe.aam.metrics.metric.SeriesNameCache;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,15 +33,22 @@ public class GraphitePublisher extends AbstractPublisher {
 
     private static final Logger logger = LoggerFactory.getLogger(GraphitePublisher.class);
     private final SocketWriterFactory socketFactory;
+    private final SeriesNameCache seriesNames;
 
     public GraphitePublisher(PublisherConfig config, SocketWriterFactory socketFactory) {
         super(config);
         this.socketFactory = socketFactory;
+        this.seriesNames = newSeriesNameCache(config);
     }
 
     public GraphitePublisher(PublisherConfig config) {
-        super(config);
-        this.socketFactory = new SocketWriterFactory();
+        this(config, new SocketWriterFactory());
+    }
+
+    private static SeriesNameCache newSeriesNameCache(PublisherConfig config) {
+        // Full metric name (eg. prod.myapp.cluster1.us-east-1.requests.attempted.count)
+        return new SeriesNameCache(config.tags().asMetricName() + ".", '.',
+                type -> StringUtils.isNotBlank(type.getName()) ? "." + type.getName() : "");
     }
 
     @Override
@@ -59,34 +67,55 @@ public class GraphitePublisher extends AbstractPublisher {
         }
     }
 
+    /**
+     * Writes the series straight from the columns of the snapshot, timestamped with the time of the capture.
+     */
+    @Override
+    public void publishSnapshot(MetricSnapshot snapshot) throws IOException {
+        try {
+            for (int start = 0; start < snapshot.size(); start += nonEmptyBatchSize()) {
+                send(snapshot, start, Math.min(snapshot.size(), start + nonEmptyBatchSize()));
+            }
+        } catch (IOException e) {
+            logger.error("Error sending metrics to '{}'. {}", config().name(), e.getMessage());
+            throw e;
+        }
+    }
+
+    private void send(MetricSnapshot snapshot, int start, int end) throws IOException {
+        logger.info("Sending {} metrics to '{}': {}", end - start, config().name(), config().host());
+
+        try (SocketWriter writer = socketFactory.create()) {
+            writer.open(config().host(), config().port().orElse(2003), config().socketTimeout());
+
+            GraphiteLine line = new GraphiteLine();
+            for (int i = start; i < end; i++) {
+                if (!shouldKeep(snapshot.getLastTrackTime(i))) {
+                    continue;
+                }
+                SeriesNameCache.SeriesName name = seriesNames.get(snapshot.getLabels(i), snapshot.getType(i));
+                double value = getMetricValue(snapshot, i);
+                line.encode(name, value, snapshot.getCaptureTime());
+                writer.write(line.getBytes(), 0, line.getLength());
+                if (logger.isInfoEnabled()) {
+                    logger.info("Metric sent from '{}': {} {}", config().name(), name, value);
+                }
+            }
+        }
+    }
+
     private void send(Collection<Metric> metrics) throws IOException {
         logger.info("Sending {} metrics to '{}': {}", metrics.size(), config().name(), config().host());
 
-        SocketWriter writer = socketFactory.create();
-        writer.open(config().host(), config().port().orElse(2003), config().socketTimeout());
-
-        metrics.forEach(metric -> {
-            writer.write(format(metric));
-            logger.info("Metric sent from '{}': {}", config().name(), metric);
-        });
-        writer.close();
-    }
+        try (SocketWriter writer = socketFactory.create()) {
+            writer.open(config().host(), config().port().orElse(2003), config().socketTimeout());
 
-    private String format(Metric metric) {
-        // Generate full metric name (eg. prod.myapp.cluster1.us-east-1.requests.attempted.count)
-        StringBuilder fullMetric = new StringBuilder();
-        fullMetric
-                .append(config().tags().asMetricName())
-                .append(".")
-                .append(metric.getLabels().format('.'));
-
-        String metricType = metric.getType().getName();
-        if (StringUtils.isNotBlank(metricType)) {
-            fullMetric
-                    .append(".")
-                    .append(metricType);
+            GraphiteLine line = new GraphiteLine();
+            for (Metric metric : metrics) {
+                line.encode(seriesNames.get(metric), super.getMetricValue(metric), System.currentTimeMillis());
+                writer.write(line.getBytes(), 0, line.getLength());
+                logger.info("Metric sent from '{}': {}", config().name(), metric);
+            }
         }
-
-        return String.format("%s %2.2f %d", fullMetric, super.getMetricValue(metric), System.currentTimeMillis());
     }
 }
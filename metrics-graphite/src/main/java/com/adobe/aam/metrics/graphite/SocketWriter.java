@@ -13,15 +13,18 @@
 
 package com.adobe.aam.metrics.graphite;
 
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.charset.StandardCharsets;
 
-public class SocketWriter {
+public class SocketWriter implements Closeable {
 
     private Socket socket;
-    private PrintWriter writer;
+    private OutputStream out;
 
     public void open(String host, int port, int connectTimeout) throws IOException {
         socket = new Socket();
@@ -31,15 +34,38 @@ public class SocketWriter {
         // If the host is wrong, the connect is going to block without a timeout.
         socket.connect(address, connectTimeout);
 
-        writer = new PrintWriter(socket.getOutputStream());
+        out = new BufferedOutputStream(socket.getOutputStream());
     }
 
-    public void write(String line) {
-        writer.printf("%s%n", line);
+    /**
+     * Writes the line, followed by a new line.
+     */
+    public void write(String line) throws IOException {
+        out.write(line.getBytes(StandardCharsets.UTF_8));
+        out.write('\n');
     }
 
+    /**
+     * Writes the given bytes as they are. They are expected to end with a new line.
+     */
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        out.write(bytes, offset, length);
+    }
+
+    /**
+     * Flushes the lines written so far and closes the socket, which is closed even if the flush fails or the socket
+     * never connected.
+     */
+    @Override
     public void close() throws IOException {
-        writer.close();
-        socket.close();
+        try {
+            if (out != null) {
+                out.close();
+            }
+        } finally {
+            if (socket != null) {
+                socket.close();
+            }
+        }
     }
 }
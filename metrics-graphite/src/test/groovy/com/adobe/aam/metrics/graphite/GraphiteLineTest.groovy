@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+package com.adobe.aam.metrics.graphite
+
+import com.adobe.aam.metrics.metric.ImmutableMetricLabels
+import com.adobe.aam.metrics.metric.Metric
+import com.adobe.aam.metrics.metric.SeriesNameCache
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class GraphiteLineTest extends Specification {
+
+    def names = new SeriesNameCache("prod.", '.' as char, { type -> "" })
+
+    @Unroll
+    def "encodes #value like String.format"() {
+
+        when:
+        def line = new GraphiteLine().encode(name("request"), value, 1500000000000L)
+
+        then:
+        line.toString() == String.format(Locale.ROOT, "prod.request %2.2f 1500000000000\n", value)
+
+        where:
+        value << [0d, 1d, 100d, 0.125d, 1.005d, 2.675d, -3.5d, -0.001d, -0.0d, 123456789.987d, 1e14d, 1e20d, -1e20d,
+                  Double.NaN, Double.POSITIVE_INFINITY, Long.MAX_VALUE as double]
+    }
+
+    def "encodes random values like String.format"() {
+
+        setup:
+        def random = new Random(42)
+        def line = new GraphiteLine()
+
+        expect:
+        (1..100000).every {
+            // Values with few decimals, which are often close to a tie, and values of any magnitude.
+            double value = it % 2 == 0 ? (random.nextInt(2000000) - 1000000) / 1000d
+                    : random.nextGaussian() * Math.pow(10, random.nextInt(16))
+            line.encode(name("request"), value, it).toString() ==
+                    String.format(Locale.ROOT, "prod.request %2.2f %d\n", value, it)
+        }
+    }
+
+    def "reuses its buffer for the next line"() {
+
+        setup:
+        def line = new GraphiteLine()
+        def longName = name("x" * 1000)
+
+        when:
+        line.encode(longName, 1, 2)
+        line.encode(name("request"), 10, 20)
+
+        then:
+        line.toString() == "prod.request 10.00 20\n"
+        line.getLength() == "prod.request 10.00 20\n".length()
+    }
+
+    private SeriesNameCache.SeriesName name(String metricName) {
+        names.get(ImmutableMetricLabels.builder().metricName(metricName).build(), Metric.Type.COUNT)
+    }
+}
@@ -15,7 +15,10 @@ package com.adobe.aam.metrics.graphite
 
 import com.adobe.aam.metrics.core.config.ImmutablePublisherConfig
 import com.adobe.aam.metrics.core.config.PublisherConfig
+import com.adobe.aam.metrics.core.publish.MetricSnapshot
+import com.adobe.aam.metrics.metric.ImmutableMetricLabels
 import com.adobe.aam.metrics.metric.ImmutableTags
+import com.adobe.aam.metrics.metric.LongCounterMetric
 import com.adobe.aam.metrics.metric.Metric
 import com.adobe.aam.metrics.metric.SimpleMetric
 import com.adobe.aam.metrics.metric.bucket.MetricBucketImpl
@@ -24,6 +27,8 @@ import spock.lang.Shared
 import spock.lang.Specification
 import spock.util.concurrent.BlockingVariable
 
+import java.nio.charset.StandardCharsets
+
 class GraphitePublisherTest extends Specification {
 
     @Shared
@@ -52,8 +57,8 @@ class GraphitePublisherTest extends Specification {
                 actualTimeout.set(timeout)
             }
 
-            write(_) >> { arguments ->
-                final String line = arguments[0]
+            write(_, _, _) >> { arguments ->
+                final String line = new String(arguments[0] as byte[], 0, arguments[2] as int, StandardCharsets.UTF_8)
                 if (linesOutputted++ == 0) {
                     line1.set(line)
                 } else {
@@ -115,8 +120,8 @@ class GraphitePublisherTest extends Specification {
             open(*_) >> {
             }
 
-            write(_) >> { arguments ->
-                line.set(arguments[0])
+            write(_, _, _) >> { arguments ->
+                line.set(new String(arguments[0] as byte[], 0, arguments[2] as int, StandardCharsets.UTF_8))
             }
         }
 
@@ -150,4 +155,89 @@ class GraphitePublisherTest extends Specification {
         then:
         line.get().startsWith("prod.myapp.prefix.prefix_value.request.suffix.suffix_value.count 10.00")
     }
+
+    def "test publish a snapshot using the Graphite publisher"() {
+
+        setup:
+
+        def lines = []
+
+        def socketWriter = Mock(SocketWriter) {
+
+            open(*_) >> {
+            }
+
+            write(_, _, _) >> { arguments ->
+                lines.add(new String(arguments[0] as byte[], 0, arguments[2] as int, StandardCharsets.UTF_8))
+            }
+        }
+
+        def socketFactory = Mock(SocketWriterFactory) {
+            create() >> {
+                return socketWriter
+            }
+        }
+
+        def publishFrequencyMs = 60000
+        PublisherConfig config = ImmutablePublisherConfig.builder()
+                .type("Graphite")
+                .name("Graphite publisher")
+                .host("https://myhost")
+                .resetCounters(true)
+                .sendOnlyRecentlyUpdatedMetrics(true)
+                .publishFrequencyMs(publishFrequencyMs)
+                .tags(tags)
+                .build();
+
+        def graphitePublisher = new GraphitePublisher(config, socketFactory)
+
+        def now = Metric.getClock().time()
+        def counter = new LongCounterMetric(ImmutableMetricLabels.builder().metricName("request").build())
+        counter.track(100)
+        def snapshot = MetricSnapshot.builder(3)
+                .add(counter)
+                .add(ImmutableMetricLabels.builder().metricName("latency").build(), Metric.Type.AVG, 12.5, now)
+                .add(ImmutableMetricLabels.builder().metricName("stale").build(), Metric.Type.AVG, 1, now - 2 * publishFrequencyMs)
+                .build(1500000000000L)
+
+        when:
+        graphitePublisher.publishSnapshot(snapshot)
+
+        then:
+        // The lines are timestamped with the capture time of the snapshot, and the counters are reset.
+        lines == ["prod.myapp.request.count 100.00 1500000000000\n", "prod.myapp.latency.avg 12.50 1500000000000\n"]
+    }
+
+    def "test the socket is closed when a write fails"() {
+
+        setup:
+
+        def socketWriter = Mock(SocketWriter)
+
+        def socketFactory = Mock(SocketWriterFactory) {
+            create() >> {
+                return socketWriter
+            }
+        }
+
+        PublisherConfig config = ImmutablePublisherConfig.builder()
+                .type("Graphite")
+                .name("Graphite publisher")
+                .host("https://myhost")
+                .tags(tags)
+                .build();
+
+        def graphitePublisher = new GraphitePublisher(config, socketFactory)
+
+        def counter = new LongCounterMetric(ImmutableMetricLabels.builder().metricName("request").build())
+        counter.track(100)
+
+        when:
+        graphitePublisher.doPublishMetrics([counter])
+
+        then:
+        1 * socketWriter.write(_, _, _) >> { throw new IOException("Broken pipe") }
+        1 * socketWriter.close()
+        thrown(IOException)
+    }
 }
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics.core.di;
+
+import com.adobe.aam.metrics.metric.MetricRecorder;
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+
+/**
+ * Provides the {@link MetricRecorder} of the current thread, for servers which handle each request on a single
+ * thread. The request handler commits it when the request is done.
+ *
+ * Servers which hand a request over to several threads can instead bind a MetricRecorder in their own request scope.
+ */
+public class MetricRecorderModule extends AbstractModule {
+
+    @Override
+    protected void configure() {
+    }
+
+    @Provides
+    public MetricRecorder providesMetricRecorder() {
+        return MetricRecorder.current();
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2018 Adobe Systems Incorporated. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.adobe.aam.metrics
+
+import com.adobe.aam.metrics.core.di.MetricRecorderModule
+import com.adobe.aam.metrics.metric.MetricRecorder
+import com.google.inject.Guice
+import com.google.inject.Injector
+import spock.lang.Specification
+
+class MetricRecorderModuleTest extends Specification {
+
+    def "MetricRecorderModule provides the recorder of the current thread"() {
+        setup:
+        Injector injector = Guice.createInjector(new MetricRecorderModule())
+
+        when:
+        MetricRecorder recorder = injector.getInstance(MetricRecorder.class)
+
+        then:
+        recorder.is(MetricRecorder.current())
+        recorder.is(injector.getInstance(MetricRecorder.class))
+    }
+}
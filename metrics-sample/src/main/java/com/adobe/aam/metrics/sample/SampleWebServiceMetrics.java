@@ -13,24 +13,24 @@
 
 package com.adobe.aam.metrics.sample;
 
-import com.adobe.aam.metrics.codahale.histogram.SamplingHistogram;
-import com.adobe.aam.metrics.codahale.registry.SamplingMetricRegistry;
 import com.adobe.aam.metrics.metric.CounterMetric;
 import com.adobe.aam.metrics.metric.Metric;
+import com.adobe.aam.metrics.metric.TimerMetric;
 import com.adobe.aam.metrics.metric.bucket.MetricBucket;
 import com.adobe.aam.metrics.metric.bucket.MetricBucketImpl;
+import com.adobe.aam.metrics.metric.bucket.TopKMetricBucket;
 
 import java.util.Collection;
 
 public enum SampleWebServiceMetrics implements MetricBucket {
 
-    REQUEST_COUNT("request", Metric.Type.COUNT, "subdomain"),
+    // Only the 100 busiest subdomains get their own series, the others are counted in request.subdomain.other.
+    REQUEST_COUNT("request", "subdomain", 100),
     AVG_REQUEST_BODY_SIZE("request.size", Metric.Type.AVG),
     REJECTED_REQUESTS("request.rejected", Metric.Type.COUNT);
 
-    public static final SamplingMetricRegistry registry = new SamplingMetricRegistry(0.1);
-    public static final SamplingHistogram REQUEST_TIME_HISTOGRAM = registry.samplingHistogram("request.time");
-    private final MetricBucketImpl bucket;
+    public static final TimerMetric REQUEST_TIME = new TimerMetric("request.time");
+    private final MetricBucket bucket;
 
     SampleWebServiceMetrics(String name, Metric.Type bucketType) {
         bucket = new MetricBucketImpl(name, bucketType);
@@ -41,6 +41,10 @@ public enum SampleWebServiceMetrics implements MetricBucket {
         bucket = new MetricBucketImpl(name, bucketType, labelName);
     }
 
+    SampleWebServiceMetrics(String name, String labelName, int topK) {
+        bucket = new TopKMetricBucket(name, labelName, topK);
+    }
+
     public void incrementFor(Object identifier) {
         // Increment for parent.
         getCounter().increment();
@@ -16,7 +16,6 @@ package com.adobe.aam.metrics.sample.di;
 import com.adobe.aam.metrics.BufferedMetricClient;
 import com.adobe.aam.metrics.agent.ImmutableMetricAgentConfig;
 import com.adobe.aam.metrics.agent.MetricAgentConfig;
-import com.adobe.aam.metrics.codahale.CodahaleMetricRegistryReporter;
 import com.adobe.aam.metrics.core.client.MetricClientFactory;
 import com.adobe.aam.metrics.metric.Tags;
 import com.adobe.aam.metrics.sample.SampleWebServiceMetrics;
@@ -46,7 +45,7 @@ class MetricAgentConfigModule extends AbstractModule {
         return ImmutableMetricAgentConfig.builder()
                 .collectFrequency(config.getDuration("monitor.collectFrequency"))
                 .addMetricBuckets(SampleWebServiceMetrics.values())
-                .addMetricRegistries(new CodahaleMetricRegistryReporter(SampleWebServiceMetrics.registry))
+                .addMetrics(SampleWebServiceMetrics.REQUEST_TIME)
                 .putMetricValueProviders(SampleWebServiceMetrics.REJECTED_REQUESTS.getParentMetric(),
                         () -> Optional.of((double) httpDispatcher.getRejectedRequestsCount())
                 )
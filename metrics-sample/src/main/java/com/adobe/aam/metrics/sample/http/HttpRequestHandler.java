@@ -13,6 +13,7 @@
 
 package com.adobe.aam.metrics.sample.http;
 
+import com.adobe.aam.metrics.metric.TimerMetric;
 import com.adobe.aam.metrics.sample.SampleWebServiceMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,21 +30,14 @@ public class HttpRequestHandler {
         // This will update request.size.avg
         SampleWebServiceMetrics.AVG_REQUEST_BODY_SIZE.track(request.getBodySize());
 
-        long processTime = processRequest(request);
-
-        // This will update request.time.avg / request.time.p99 / request.time.p95 etc.
-        SampleWebServiceMetrics.REQUEST_TIME_HISTOGRAM.update(processTime);
+        // This will update request.time.avg / request.time.p99 / request.time.p95 etc. (in ms)
+        try (TimerMetric.Context ignored = SampleWebServiceMetrics.REQUEST_TIME.time()) {
+            processRequest(request);
+        }
     }
 
-    /**
-     * @return the total time (in ms) spent while processing the HTTP request
-     */
-    private long processRequest(HttpRequest request) {
-        long startTime = System.currentTimeMillis();
-
+    private void processRequest(HttpRequest request) {
         // DO WORK
         LOG.info("Processing: {}", request);
-
-        return System.currentTimeMillis() - startTime;
     }
 }